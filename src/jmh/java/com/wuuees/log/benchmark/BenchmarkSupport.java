@@ -0,0 +1,38 @@
+package com.wuuees.log.benchmark;
+
+import com.wuuees.log.config.LogConfigProperties;
+import com.wuuees.log.service.LogMetricsService;
+import com.wuuees.log.service.LogService;
+import com.wuuees.log.service.TestServices;
+
+import java.io.File;
+
+/**
+ * 在不启动 Spring 容器的情况下组装被测服务
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 基准测试使用的配置，放开文件大小限制
+     */
+    static LogConfigProperties config(File logDir) {
+        LogConfigProperties config = new LogConfigProperties();
+        config.setLogPath(logDir.getAbsolutePath());
+        config.setMaxFileSize(Long.MAX_VALUE / (1024 * 1024));
+        return config;
+    }
+
+    static LogService logService(LogConfigProperties config) {
+        return TestServices.logService(config);
+    }
+
+    /**
+     * 指标写入内存注册表，与生产环境的记录开销一致
+     */
+    static LogMetricsService metricsService() {
+        return TestServices.metricsService();
+    }
+}
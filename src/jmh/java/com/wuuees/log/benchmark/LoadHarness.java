@@ -0,0 +1,314 @@
+package com.wuuees.log.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wuuees.log.util.LogLineGenerator;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 端到端负载测试：通过负载生成接口按设定速率写入日志，同时运行 N 个查询客户端和 M 个 STOMP 实时订阅，
+ * 结束后输出查询延迟的 p50/p99、实时推送延迟以及丢失的行数
+ * <p>
+ * 被测服务需要开启 wuuees.log.viewer.generator-enabled。实时推送进入降级模式时，
+ * 服务端汇总中报告的抽样行不计为丢失。
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.wuuees.log.benchmark.LoadHarness \
+ *     -Dbenchmark.args="--url=http://localhost:8080 --rate=5000 --duration=60 --queryClients=8 --subscribers=4"
+ * </pre>
+ */
+public class LoadHarness {
+
+    private static final String TOPIC = "/topic/log-monitor";
+
+    private static final String[] KEYWORDS = {"orderId", "timeout", "payment", "userId", "HikariPool", ""};
+
+    private static final String[] LEVELS = {"", "ERROR", "WARN", "INFO"};
+
+    // 停止写入后等待实时推送完成的时间
+    private static final long DRAIN_MILLIS = 3000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    private final String url;
+
+    private final String fileName;
+
+    private final int rate;
+
+    private final int durationSeconds;
+
+    private final int queryClients;
+
+    private final int subscribers;
+
+    private final int pageSize;
+
+    private final int maxFileSizeMb;
+
+
+    LoadHarness(Map<String, String> args) {
+        this.url = args.getOrDefault("url", "http://localhost:8080").replaceAll("/+$", "");
+        this.fileName = args.getOrDefault("file", "load.log");
+        this.rate = Integer.parseInt(args.getOrDefault("rate", "2000"));
+        this.durationSeconds = Integer.parseInt(args.getOrDefault("duration", "30"));
+        this.queryClients = Integer.parseInt(args.getOrDefault("queryClients", "4"));
+        this.subscribers = Integer.parseInt(args.getOrDefault("subscribers", "2"));
+        this.pageSize = Integer.parseInt(args.getOrDefault("pageSize", "100"));
+        this.maxFileSizeMb = Integer.parseInt(args.getOrDefault("maxFileSizeMb", "50"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("参数格式应为 --name=value: " + arg);
+            }
+            int idx = arg.indexOf('=');
+            options.put(arg.substring(2, idx), arg.substring(idx + 1));
+        }
+        new LoadHarness(options).run();
+        System.exit(0);
+    }
+
+    void run() throws Exception {
+        System.out.printf("目标: %s，文件: %s，写入 %d 条/秒，持续 %d 秒，查询客户端 %d 个，实时订阅 %d 个%n",
+                url, fileName, rate, durationSeconds, queryClients, subscribers);
+
+        // 先订阅并开始监控，保证生成的每一行都在监控开始之后写入
+        WebSocketStompClient stompClient = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        stompClient.setInboundMessageSizeLimit(1024 * 1024);
+        List<Subscriber> subscriberList = new ArrayList<>();
+        for (int i = 0; i < subscribers; i++) {
+            Subscriber subscriber = new Subscriber();
+            subscriber.session = stompClient.connectAsync(url + "/ws-log-monitor", new StompSessionHandlerAdapter() {
+            }).get(10, TimeUnit.SECONDS);
+            subscriber.session.subscribe(TOPIC, subscriber);
+            subscriberList.add(subscriber);
+        }
+        if (!subscriberList.isEmpty()) {
+            subscriberList.get(0).session.send("/app/start-monitoring", Map.of("fileName", fileName));
+            Thread.sleep(500);
+        }
+
+        JsonNode started = post("/api/generator/start", Map.of(
+                "fileName", fileName, "linesPerSecond", rate, "durationSeconds", durationSeconds,
+                "maxFileSizeMb", maxFileSizeMb));
+        if (started == null) {
+            throw new IllegalStateException("启动负载生成失败，请确认服务已开启 wuuees.log.viewer.generator-enabled");
+        }
+
+        // 查询客户端
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(queryClients, 1));
+        List<Future<QueryStats>> queries = new ArrayList<>();
+        for (int i = 0; i < queryClients; i++) {
+            int client = i;
+            queries.add(executor.submit(() -> query(client, stopped)));
+        }
+
+        // 等待生成结束
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds + 5L);
+        JsonNode status;
+        do {
+            Thread.sleep(1000);
+            status = get("/api/generator/status");
+        } while (status != null && status.path("running").asBoolean() && System.nanoTime() < deadline);
+        status = post("/api/generator/stop", Map.of());
+        stopped.set(true);
+        Thread.sleep(DRAIN_MILLIS);
+
+        List<Long> queryLatencies = new ArrayList<>();
+        long queryErrors = 0;
+        for (Future<QueryStats> future : queries) {
+            QueryStats stats = future.get();
+            queryLatencies.addAll(stats.latencies);
+            queryErrors += stats.errors;
+        }
+        executor.shutdown();
+        if (!subscriberList.isEmpty()) {
+            subscriberList.get(0).session.send("/app/stop-monitoring", Map.of());
+        }
+
+        report(status, queryLatencies, queryErrors, subscriberList);
+        for (Subscriber subscriber : subscriberList) {
+            subscriber.session.disconnect();
+        }
+        stompClient.stop();
+    }
+
+    /**
+     * 一个查询客户端，循环查询直到结束
+     */
+    private QueryStats query(int client, AtomicBoolean stopped) {
+        QueryStats stats = new QueryStats();
+        Random random = new Random(client);
+        while (!stopped.get()) {
+            Map<String, Object> request = new HashMap<>();
+            request.put("fileName", fileName);
+            request.put("pageSize", pageSize);
+            request.put("keyword", KEYWORDS[random.nextInt(KEYWORDS.length)]);
+            request.put("level", LEVELS[random.nextInt(LEVELS.length)]);
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(URI.create(url + "/api/logs/query"))
+                        .timeout(Duration.ofSeconds(60))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(request)))
+                        .build(), HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    stats.latencies.add(System.nanoTime() - start);
+                } else {
+                    stats.errors++;
+                }
+            } catch (IOException e) {
+                stats.errors++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return stats;
+    }
+
+    private void report(JsonNode status, List<Long> queryLatencies, long queryErrors, List<Subscriber> subscriberList) {
+        long entries = status.path("entriesWritten").asLong();
+        long lines = status.path("linesWritten").asLong();
+        System.out.println();
+        System.out.println("== 写入 ==");
+        System.out.printf("日志 %d 条（%d 行，含堆栈），实际 %d 条/秒，%.1f MB，轮转 %d 次%n",
+                entries, lines, status.path("actualLinesPerSecond").asLong(),
+                status.path("bytesWritten").asLong() / 1024.0 / 1024.0, status.path("rotations").asInt());
+
+        System.out.println("== 查询 ==");
+        double seconds = Math.max(durationSeconds, 1);
+        System.out.printf("请求 %d 次，失败 %d 次，%.1f 次/秒，p50 %.1f ms，p99 %.1f ms，最大 %.1f ms%n",
+                queryLatencies.size(), queryErrors, queryLatencies.size() / seconds,
+                percentile(queryLatencies, 0.5) / 1e6, percentile(queryLatencies, 0.99) / 1e6,
+                percentile(queryLatencies, 1.0) / 1e6);
+
+        System.out.println("== 实时推送 ==");
+        for (int i = 0; i < subscriberList.size(); i++) {
+            Subscriber subscriber = subscriberList.get(i);
+            synchronized (subscriber) {
+                long lost = Math.max(0, lines - subscriber.lines - subscriber.sampled);
+                System.out.printf("订阅 %d: 收到 %d 行（%d 条），降级抽样 %d 行，丢失 %d 行（%.3f%%），"
+                                + "推送延迟 p50 %d ms，p99 %d ms%s%n",
+                        i + 1, subscriber.lines, subscriber.sequences.size(), subscriber.sampled, lost,
+                        lines > 0 ? lost * 100.0 / lines : 0,
+                        percentile(subscriber.lags, 0.5), percentile(subscriber.lags, 0.99),
+                        subscriber.degraded ? "，曾进入降级模式" : "");
+            }
+        }
+    }
+
+    private static long percentile(List<Long> values, double p) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.min(Math.max(index, 0), sorted.size() - 1));
+    }
+
+    private JsonNode get(String path) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(url + path)).GET());
+    }
+
+    private JsonNode post(String path, Map<String, ?> body) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(url + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body))));
+    }
+
+    private JsonNode send(HttpRequest.Builder builder) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(builder.timeout(Duration.ofSeconds(10)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            System.err.printf("%s 返回 HTTP %d%n", response.uri(), response.statusCode());
+            return null;
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+
+    private static class QueryStats {
+
+        private final List<Long> latencies = new ArrayList<>();
+
+        private long errors;
+    }
+
+
+    /**
+     * 一个实时订阅，统计收到的行、序号和推送延迟
+     */
+    private static class Subscriber implements StompFrameHandler {
+
+        private StompSession session;
+
+        private long lines;
+
+        private long sampled;
+
+        private boolean degraded;
+
+        private final Set<Long> sequences = new HashSet<>();
+
+        private final List<Long> lags = new ArrayList<>();
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return Map.class;
+        }
+
+        @Override
+        public synchronized void handleFrame(StompHeaders headers, Object payload) {
+            Map<?, ?> message = (Map<?, ?>) payload;
+            Object type = message.get("type");
+            if ("new_log_line".equals(type)) {
+                lines++;
+                String content = String.valueOf(message.get("content"));
+                long sequence = LogLineGenerator.sequenceOf(content);
+                if (sequence >= 0) {
+                    sequences.add(sequence);
+                    Object timestamp = message.get("timestamp");
+                    if (timestamp != null && !timestamp.toString().isEmpty()) {
+                        long written = LocalDateTime.parse(timestamp.toString())
+                                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                        lags.add(Math.max(System.currentTimeMillis() - written, 0));
+                    }
+                }
+            } else if ("tail_summary".equals(type)) {
+                sampled += ((Number) message.get("sampled")).longValue();
+            } else if ("tail_mode".equals(type) && "degraded".equals(message.get("mode"))) {
+                degraded = true;
+            }
+        }
+    }
+}
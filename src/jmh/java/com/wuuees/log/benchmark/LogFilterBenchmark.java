@@ -0,0 +1,76 @@
+package com.wuuees.log.benchmark;
+
+import com.wuuees.log.dto.LogQueryDto;
+import com.wuuees.log.service.LogService;
+import com.wuuees.log.service.LogServiceAccess;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LogService.filterLines 按过滤类型的耗时，每次操作扫描整个样本文件
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class LogFilterBenchmark {
+
+    @Param({"100"})
+    private int fileSizeMb;
+
+    @Param({"keyword", "level", "time", "combined"})
+    private String filterType;
+
+    private LogService logService;
+
+    private List<String> lines;
+
+    private LogQueryDto.LogQueryRequest request;
+
+    @Setup
+    public void setup() throws Exception {
+        File fixture = LogFixtures.fixture(fileSizeMb);
+        logService = BenchmarkSupport.logService(BenchmarkSupport.config(fixture.getParentFile()));
+        lines = FileUtils.readLines(fixture, StandardCharsets.UTF_8);
+        request = request(fixture.getName(), filterType);
+    }
+
+    @Benchmark
+    public List<String> filterLines() {
+        return LogServiceAccess.filterLines(logService, lines, request);
+    }
+
+    static LogQueryDto.LogQueryRequest request(String fileName, String filterType) {
+        LogQueryDto.LogQueryRequest req = new LogQueryDto.LogQueryRequest();
+        req.setFileName(fileName);
+        switch (filterType) {
+            case "none":
+                break;
+            case "keyword":
+                req.setKeyword("timeout");
+                break;
+            case "level":
+                req.setLevel("ERROR");
+                break;
+            case "time":
+                req.setStartTime(LogFixtures.START_TIME.plusMinutes(30));
+                req.setEndTime(LogFixtures.START_TIME.plusMinutes(90));
+                break;
+            case "combined":
+                req.setKeyword("orderId");
+                req.setLevel("ERROR");
+                req.setStartTime(LogFixtures.START_TIME.plusMinutes(30));
+                break;
+            default:
+                throw new IllegalArgumentException("未知的过滤类型: " + filterType);
+        }
+        return req;
+    }
+}
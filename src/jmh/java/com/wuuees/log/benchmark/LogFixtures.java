@@ -0,0 +1,71 @@
+package com.wuuees.log.benchmark;
+
+import com.wuuees.log.util.LogLineGenerator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * 基准测试用的日志样本生成工具
+ * <p>
+ * 使用 {@link LogLineGenerator} 生成日志，生成结果缓存在 target/jmh-fixtures 下，相同大小的样本只生成一次。
+ */
+public final class LogFixtures {
+
+    /**
+     * 样本文件起始时间，固定值保证多次运行结果可比
+     */
+    public static final LocalDateTime START_TIME = LocalDateTime.of(2025, 1, 1, 0, 0, 0);
+
+    private LogFixtures() {
+    }
+
+    /**
+     * 获取指定大小的样本文件，不存在时生成
+     *
+     * @param sizeMb 文件大小（MB）
+     * @return 样本文件
+     */
+    public static File fixture(int sizeMb) throws IOException {
+        Path dir = Paths.get(System.getProperty("benchmark.fixtureDir", "target/jmh-fixtures"));
+        Files.createDirectories(dir);
+        Path file = dir.resolve("fixture-" + sizeMb + "mb.log");
+        if (Files.exists(file) && Files.size(file) >= sizeMb * 1024L * 1024L) {
+            return file.toFile();
+        }
+
+        Path tmp = dir.resolve(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(tmp), StandardCharsets.UTF_8), 1 << 16)) {
+            write(writer, sizeMb * 1024L * 1024L);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        return file.toFile();
+    }
+
+    /**
+     * 写入指定字节数的日志内容
+     */
+    static void write(BufferedWriter writer, long targetBytes) throws IOException {
+        Random random = new Random(42);
+        LocalDateTime time = START_TIME;
+        long written = 0;
+        StringBuilder sb = new StringBuilder(512);
+        while (written < targetBytes) {
+            time = time.plusNanos((random.nextInt(20) + 1) * 1_000_000L);
+            sb.setLength(0);
+            LogLineGenerator.appendLine(sb, random, time);
+            writer.write(sb.toString());
+            written += sb.length();
+        }
+    }
+}
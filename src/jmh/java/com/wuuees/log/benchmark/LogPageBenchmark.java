@@ -0,0 +1,63 @@
+package com.wuuees.log.benchmark;
+
+import com.wuuees.log.dto.LogQueryDto;
+import com.wuuees.log.service.LogService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LogService.queryLogs 单页查询延迟，按文件大小和页码位置区分
+ * <p>
+ * queryLogs 会把整个文件读入内存，4GB 堆下样本最大约 1GB
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class LogPageBenchmark {
+
+    @Param({"100"})
+    private int fileSizeMb;
+
+    @Param({"first", "middle", "last"})
+    private String position;
+
+    @Param({"none", "keyword"})
+    private String filterType;
+
+    private LogService logService;
+
+    private LogQueryDto.LogQueryRequest request;
+
+    @Setup
+    public void setup() throws Exception {
+        File fixture = LogFixtures.fixture(fileSizeMb);
+        logService = BenchmarkSupport.logService(BenchmarkSupport.config(fixture.getParentFile()));
+
+        request = LogFilterBenchmark.request(fixture.getName(), filterType);
+        request.setPageSize(100);
+        int totalPages = Math.max(logService.queryLogs(request).getTotalPages(), 1);
+        switch (position) {
+            case "first":
+                request.setPage(1);
+                break;
+            case "middle":
+                request.setPage(Math.max(totalPages / 2, 1));
+                break;
+            case "last":
+                request.setPage(totalPages);
+                break;
+            default:
+                throw new IllegalArgumentException("未知的页码位置: " + position);
+        }
+    }
+
+    @Benchmark
+    public LogQueryDto.LogQueryResponse queryPage() {
+        return logService.queryLogs(request);
+    }
+}
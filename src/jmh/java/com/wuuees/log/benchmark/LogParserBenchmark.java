@@ -0,0 +1,48 @@
+package com.wuuees.log.benchmark;
+
+import com.wuuees.log.util.LogParser;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.LineIterator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LogParser 解析吞吐量，得分单位为 行/秒
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class LogParserBenchmark {
+
+    private static final int SAMPLE_LINES = 100_000;
+
+    private final LogParser logParser = new LogParser();
+
+    private List<String> lines;
+
+    @Setup
+    public void setup() throws Exception {
+        lines = new ArrayList<>(SAMPLE_LINES);
+        try (LineIterator it = FileUtils.lineIterator(LogFixtures.fixture(100), StandardCharsets.UTF_8.name())) {
+            while (it.hasNext() && lines.size() < SAMPLE_LINES) {
+                lines.add(it.next());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLE_LINES)
+    public void parseLine(Blackhole bh) {
+        for (String line : lines) {
+            bh.consume(logParser.parseLine(line));
+        }
+    }
+}
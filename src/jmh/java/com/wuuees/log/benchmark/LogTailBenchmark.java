@@ -0,0 +1,134 @@
+package com.wuuees.log.benchmark;
+
+import com.wuuees.log.config.LogConfigProperties;
+import com.wuuees.log.service.LogMonitorService;
+import com.wuuees.log.util.LogLineGenerator;
+import com.wuuees.log.util.LogParser;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 实时推送端到端延迟：写入一行探针日志，直到 LogMonitorService 推送出该行为止
+ * <p>
+ * 后台线程按 linesPerSecond 持续写入普通日志，模拟不同写入速率下的推送延迟。
+ * 探针日志为 WARN 级别，写入速率超过降级阈值时同样会推送。
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogTailBenchmark {
+
+    private static final String FILE_NAME = "tail.log";
+
+    private static final String PROBE = "tail-probe-";
+
+    private static final long PROBE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    @Param({"0", "1000", "10000"})
+    private int linesPerSecond;
+
+    private File logDir;
+
+    private FileOutputStream output;
+
+    private LogMonitorService monitorService;
+
+    private ScheduledExecutorService writer;
+
+    private long probeSeq;
+
+    private volatile long receivedSeq;
+
+    @Setup
+    public void setup() throws Exception {
+        logDir = Files.createTempDirectory("jmh-tail").toFile();
+        output = new FileOutputStream(new File(logDir, FILE_NAME), true);
+
+        LogConfigProperties config = BenchmarkSupport.config(logDir);
+        monitorService = new LogMonitorService();
+        ReflectionTestUtils.setField(monitorService, "logConfig", config);
+        ReflectionTestUtils.setField(monitorService, "logParser", new LogParser());
+        ReflectionTestUtils.setField(monitorService, "logMetricsService", BenchmarkSupport.metricsService());
+        ReflectionTestUtils.setField(monitorService, "messagingTemplate", new SimpMessagingTemplate((message, timeout) -> true) {
+            @Override
+            public void convertAndSend(String destination, Object payload) {
+                if (payload instanceof Map<?, ?> map) {
+                    Object content = map.get("content");
+                    if (content != null) {
+                        String text = content.toString();
+                        int idx = text.indexOf(PROBE);
+                        if (idx >= 0) {
+                            receivedSeq = Long.parseLong(text.substring(idx + PROBE.length()).trim());
+                        }
+                    }
+                }
+            }
+        });
+        monitorService.afterPropertiesSet();
+        monitorService.startMonitoring(FILE_NAME);
+
+        writer = Executors.newSingleThreadScheduledExecutor();
+        if (linesPerSecond > 0) {
+            // 每10ms写入一批，保证总速率接近 linesPerSecond
+            int batch = Math.max(linesPerSecond / 100, 1);
+            Random random = new Random(7);
+            writer.scheduleAtFixedRate(() -> {
+                StringBuilder sb = new StringBuilder(batch * 160);
+                LocalDateTime now = LocalDateTime.now();
+                for (int i = 0; i < batch; i++) {
+                    LogLineGenerator.appendLine(sb, random, now);
+                }
+                append(sb.toString());
+            }, 10, 10, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        writer.shutdownNow();
+        monitorService.destroy();
+        output.close();
+        FileUtils.deleteQuietly(logDir);
+    }
+
+    @Benchmark
+    public long writeToPush() {
+        long seq = ++probeSeq;
+        append(LogLineGenerator.FORMATTER.format(LocalDateTime.now()) + " WARN  [bench] probe - " + PROBE + seq + "\n");
+        long deadline = System.nanoTime() + PROBE_TIMEOUT_NANOS;
+        while (receivedSeq < seq) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("探针日志未在超时时间内推送: " + seq);
+            }
+            LockSupport.parkNanos(10_000);
+        }
+        return seq;
+    }
+
+    private synchronized void append(String text) {
+        try {
+            output.write(text.getBytes(StandardCharsets.UTF_8));
+            output.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.wuuees.log.benchmark;
+
+import com.wuuees.log.dto.LogLineInfo;
+import com.wuuees.log.util.LogParser;
+import com.wuuees.log.util.TemplateMiner;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.LineIterator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TemplateMiner 归类吞吐量，得分单位为 行/秒
+ * <p>
+ * 模板在多次调用之间保留，测的是模板稳定后持续归类新日志的速度，对应实时追加的场景。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class TemplateMinerBenchmark {
+
+    private static final int SAMPLE_LINES = 100_000;
+
+    private final TemplateMiner miner = new TemplateMiner(1000);
+
+    private List<String> messages;
+
+    @Setup
+    public void setup() throws Exception {
+        LogParser logParser = new LogParser();
+        messages = new ArrayList<>(SAMPLE_LINES);
+        try (LineIterator it = FileUtils.lineIterator(LogFixtures.fixture(100), StandardCharsets.UTF_8.name())) {
+            while (it.hasNext() && messages.size() < SAMPLE_LINES) {
+                String line = it.next();
+                LogLineInfo info = logParser.parseLine(line);
+                messages.add(info.getContent() != null ? info.getLevel() + " " + info.getContent() : line);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLE_LINES)
+    public void add(Blackhole bh) {
+        for (int i = 0; i < messages.size(); i++) {
+            bh.consume(miner.add(messages.get(i), i));
+        }
+    }
+}
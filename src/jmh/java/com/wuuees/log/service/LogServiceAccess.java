@@ -0,0 +1,18 @@
+package com.wuuees.log.service;
+
+import com.wuuees.log.dto.LogQueryDto;
+
+import java.util.List;
+
+/**
+ * 供基准测试调用 LogService 包内可见的方法
+ */
+public final class LogServiceAccess {
+
+    private LogServiceAccess() {
+    }
+
+    public static List<String> filterLines(LogService logService, List<String> lines, LogQueryDto.LogQueryRequest req) {
+        return logService.filterLines(lines, req);
+    }
+}
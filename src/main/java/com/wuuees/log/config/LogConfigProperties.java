@@ -4,6 +4,7 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -29,6 +30,66 @@ public class LogConfigProperties {
     private int maxLines = 1000;
 
 
+    /**
+     * 单次流式查询的最大行数
+     */
+    private int streamMaxLines = 100000;
+
+
+    /**
+     * 正则匹配单行日志的最长时间（毫秒），防止灾难性回溯
+     */
+    private long regexTimeoutMillis = 1000;
+
+
+    /**
+     * 每个文件最多保留的日志模板数，超出时淘汰最久未出现的模板
+     */
+    private int maxTemplates = 1000;
+
+
+    /**
+     * 获取模板或查询排除高频模板时等待后台归类的最长时间（毫秒），获取模板超时返回已归类部分的结果，查询超时返回400，稍后重试
+     */
+    private long templateWaitMillis = 2000;
+
+
+    /**
+     * 实时推送进入降级模式的写入速率（行/秒），降级后 ERROR/WARN 全部推送，其余级别抽样推送
+     */
+    private long tailDegradeLinesPerSecond = 2000;
+
+
+    /**
+     * 降级模式下 ERROR/WARN 以外日志的目标推送速率（行/秒）
+     */
+    private long tailSampleLinesPerSecond = 200;
+
+
+    /**
+     * 集群查询时本节点的名称
+     */
+    private String clusterNodeName = "local";
+
+
+    /**
+     * 集群查询的其他节点地址，如 http://10.0.0.2:8080，为空时只查询本节点
+     */
+    private List<String> clusterPeers = new ArrayList<>();
+
+
+    /**
+     * 集群查询每个节点的超时时间（毫秒），超时的节点不计入结果
+     */
+    private long clusterTimeoutMillis = 5000;
+
+
+    /**
+     * 是否启用负载生成接口，启用后可以向日志目录写入模拟日志，生产环境不要开启
+     */
+    private boolean generatorEnabled = false;
+
+
     /**
      * 文件最大大小（MB）
      */
@@ -0,0 +1,55 @@
+package com.wuuees.log.config;
+
+import com.wuuees.log.service.LogMetricsService;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+
+/**
+ * 统计 clientOutboundChannel 上每个主题的排队消息数和发送失败（丢弃）的消息数
+ */
+public class TopicMetricsChannelInterceptor implements ExecutorChannelInterceptor {
+
+    private final LogMetricsService logMetricsService;
+
+    public TopicMetricsChannelInterceptor(LogMetricsService logMetricsService) {
+        this.logMetricsService = logMetricsService;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String topic = topic(message);
+        if (topic != null) {
+            logMetricsService.topicQueueDepth(topic).incrementAndGet();
+        }
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        // 未能提交到线程池（例如队列已满被拒绝），不会再进入afterMessageHandled
+        String topic = topic(message);
+        if (topic != null && (!sent || ex != null)) {
+            logMetricsService.topicQueueDepth(topic).decrementAndGet();
+            logMetricsService.recordDropped(topic, "rejected", 1);
+        }
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        String topic = topic(message);
+        if (topic != null) {
+            logMetricsService.topicQueueDepth(topic).decrementAndGet();
+            if (ex != null) {
+                logMetricsService.recordDropped(topic, "send_failed", 1);
+            }
+        }
+    }
+
+    private String topic(Message<?> message) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        return destination != null && destination.startsWith("/topic") ? destination : null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.wuuees.log.controller;
+
+import com.wuuees.log.dto.LogClusterDto;
+import com.wuuees.log.dto.LogQueryDto;
+import com.wuuees.log.service.LogClusterService;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 集群查询，将请求同时发送到本节点和配置的其他节点
+ */
+@RestController
+@RequestMapping("/api/cluster")
+@Slf4j
+public class ClusterController {
+
+    @Autowired
+    private LogClusterService logClusterService;
+
+    /**
+     * 获取所有节点的日志文件列表
+     */
+    @GetMapping("/files")
+    public ResponseEntity<LogClusterDto.ClusterFilesResponse> getLogFiles() {
+        try {
+            return ResponseEntity.ok(logClusterService.getLogFiles());
+        } catch (Exception e) {
+            log.error("获取集群日志文件列表失败", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * 查询所有节点的同名日志文件，按时间合并
+     */
+    @PostMapping("/query")
+    public ResponseEntity<LogClusterDto.ClusterQueryResponse> queryLogs(@Valid @RequestBody LogQueryDto.LogQueryRequest request) {
+        try {
+            return ResponseEntity.ok(logClusterService.queryLogs(request));
+        } catch (IllegalArgumentException e) {
+            log.warn("集群查询参数错误: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("集群查询日志失败", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
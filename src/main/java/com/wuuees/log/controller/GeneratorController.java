@@ -0,0 +1,66 @@
+package com.wuuees.log.controller;
+
+import com.wuuees.log.dto.LogGeneratorDto;
+import com.wuuees.log.service.LogGeneratorService;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 负载生成，向日志目录写入模拟日志，需要开启 generator-enabled
+ */
+@RestController
+@RequestMapping("/api/generator")
+@Slf4j
+public class GeneratorController {
+
+    @Autowired
+    private LogGeneratorService logGeneratorService;
+
+    /**
+     * 开始生成日志
+     */
+    @PostMapping("/start")
+    public ResponseEntity<LogGeneratorDto.GeneratorStatus> start(@Valid @RequestBody LogGeneratorDto.GeneratorRequest request) {
+        if (!logGeneratorService.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        try {
+            return ResponseEntity.ok(logGeneratorService.start(request));
+        } catch (IllegalArgumentException e) {
+            log.warn("负载生成参数错误: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            log.warn(e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            log.error("启动负载生成失败", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * 停止生成日志
+     */
+    @PostMapping("/stop")
+    public ResponseEntity<LogGeneratorDto.GeneratorStatus> stop() {
+        if (!logGeneratorService.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(logGeneratorService.stop());
+    }
+
+    /**
+     * 获取生成状态
+     */
+    @GetMapping("/status")
+    public ResponseEntity<LogGeneratorDto.GeneratorStatus> status() {
+        if (!logGeneratorService.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(logGeneratorService.status());
+    }
+}
@@ -1,18 +1,26 @@
 package com.wuuees.log.controller;
 
+import com.wuuees.log.dto.LogHistogramDto;
 import com.wuuees.log.dto.LogQueryDto;
+import com.wuuees.log.dto.LogTemplateDto;
+import com.wuuees.log.service.LogHistogramService;
 import com.wuuees.log.service.LogService;
+import com.wuuees.log.util.LogColumnEncoder;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -24,6 +32,9 @@ public class LogController {
     @Autowired
     private LogService logService;
 
+    @Autowired
+    private LogHistogramService logHistogramService;
+
     /**
      * 获取日志文件列表
      */
@@ -55,6 +66,121 @@ public class LogController {
         }
     }
 
+    /**
+     * 查询日志内容，按列编码返回，用于减少传输量
+     * <p>
+     * 只对 {@code %-5level [thread] logger - msg} 布局的行有效，其他布局的行原样返回，见 {@link LogColumnEncoder#MEDIA_TYPE}
+     */
+    @PostMapping(value = "/query/columnar", produces = LogColumnEncoder.MEDIA_TYPE)
+    public ResponseEntity<LogQueryDto.LogColumnarResponse> queryLogsColumnar(@Valid @RequestBody LogQueryDto.LogQueryRequest request) {
+        try {
+            return ResponseEntity.ok(logService.queryLogsColumnar(request));
+        } catch (IllegalArgumentException e) {
+            log.warn("查询参数错误: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("查询日志失败", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * 流式查询日志，边扫描边返回匹配行
+     * <p>
+     * 请求头 Accept 为 text/event-stream 时以 Server-Sent Events 格式返回，否则返回 NDJSON。
+     * 每一行及最后的结束标记都带有游标，可以从任意位置继续向前或向后读取。
+     */
+    @GetMapping("/stream/{fileName}")
+    public ResponseEntity<StreamingResponseBody> streamLogs(
+            @PathVariable String fileName,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = "false") boolean regex,
+            @RequestParam(required = false) String level,
+            @RequestParam(required = false) List<String> field,
+            @RequestParam(defaultValue = "0") int beforeContext,
+            @RequestParam(defaultValue = "0") int afterContext,
+            @RequestParam(defaultValue = "0") int excludeTopTemplates,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean reverse,
+            @RequestParam(defaultValue = "1000") int limit,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        try {
+            LogQueryDto.LogStreamRequest request = new LogQueryDto.LogStreamRequest();
+            request.setFileName(fileName);
+            request.setKeyword(keyword);
+            request.setRegex(regex);
+            request.setLevel(level);
+            request.setFields(parseFieldFilters(field));
+            request.setBeforeContext(beforeContext);
+            request.setAfterContext(afterContext);
+            request.setExcludeTopTemplates(excludeTopTemplates);
+            request.setStartTime(startTime);
+            request.setEndTime(endTime);
+            request.setReverse(reverse);
+            // EventSource断线重连时会带上最后收到的游标
+            request.setCursor(lastEventId != null ? lastEventId : cursor);
+            if (limit < 1) {
+                throw new IllegalArgumentException("返回行数必须大于0");
+            }
+            request.setLimit(limit);
+
+            boolean sse = accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+            StreamingResponseBody body = logService.streamLogs(request, sse);
+            return ResponseEntity.ok()
+                    .contentType(sse ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON)
+                    .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                    .body(body);
+        } catch (IllegalArgumentException e) {
+            log.warn("流式查询参数错误: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("流式查询日志失败", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * 按时间桶统计各级别的日志行数
+     */
+    @GetMapping("/histogram")
+    public ResponseEntity<LogHistogramDto.LogHistogramResponse> histogram(
+            @RequestParam List<String> fileNames,
+            @RequestParam(defaultValue = "60") int bucketSeconds,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime) {
+        try {
+            return ResponseEntity.ok(logHistogramService.histogram(fileNames, bucketSeconds, startTime, endTime));
+        } catch (IllegalArgumentException e) {
+            log.warn("统计参数错误: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("统计日志失败", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * 按模板归类日志行，返回行数最多的模板
+     */
+    @GetMapping("/templates/{fileName}")
+    public ResponseEntity<LogTemplateDto.LogTemplateResponse> templates(
+            @PathVariable String fileName,
+            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(logService.templates(fileName, limit));
+        } catch (IllegalArgumentException e) {
+            log.warn("模板统计参数错误: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("模板统计失败", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * 下载日志文件
      */
@@ -62,7 +188,12 @@ public class LogController {
     public void downloadLog(
             @PathVariable String fileName,
             @RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = "false") boolean regex,
             @RequestParam(required = false) String level,
+            @RequestParam(required = false) List<String> field,
+            @RequestParam(defaultValue = "0") int beforeContext,
+            @RequestParam(defaultValue = "0") int afterContext,
+            @RequestParam(defaultValue = "0") int excludeTopTemplates,
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime,
             HttpServletResponse response) {
@@ -71,7 +202,12 @@ public class LogController {
             LogQueryDto.LogQueryRequest request = new LogQueryDto.LogQueryRequest();
             request.setFileName(fileName);
             request.setKeyword(keyword);
+            request.setRegex(regex);
             request.setLevel(level);
+            request.setFields(parseFieldFilters(field));
+            request.setBeforeContext(beforeContext);
+            request.setAfterContext(afterContext);
+            request.setExcludeTopTemplates(excludeTopTemplates);
             request.setStartTime(startTime);
             request.setEndTime(endTime);
 
@@ -98,4 +234,22 @@ public class LogController {
             log.info("This is a mock info log line--->{},date--->{}", i, new Date());
         }
     }
+
+    /**
+     * 解析 name=value 形式的字段过滤条件
+     */
+    private Map<String, String> parseFieldFilters(List<String> filters) {
+        if (filters == null || filters.isEmpty()) {
+            return null;
+        }
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (String filter : filters) {
+            int idx = filter.indexOf('=');
+            if (idx <= 0) {
+                throw new IllegalArgumentException("字段过滤格式应为 name=value: " + filter);
+            }
+            fields.put(filter.substring(0, idx).trim(), filter.substring(idx + 1));
+        }
+        return fields;
+    }
 }
@@ -0,0 +1,116 @@
+package com.wuuees.log.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+public class LogClusterDto {
+
+    /**
+     * 集群查询结果，各节点的结果按时间合并
+     */
+    @Data
+    public static class ClusterQueryResponse {
+
+        /**
+         * 当前页的日志行
+         */
+        private List<String> lines;
+
+        /**
+         * 每一行所属的节点
+         */
+        private List<String> nodes;
+
+        /**
+         * 每一行在所属节点文件中的行号
+         */
+        private List<Integer> lineNumbers;
+
+        /**
+         * 每一行是否为上下文行
+         */
+        private List<Boolean> context;
+
+        /**
+         * 成功返回的节点匹配的总行数
+         */
+        private long totalLines;
+
+        /**
+         * 当前页码
+         */
+        private int currentPage;
+
+        /**
+         * 总页数，不超过合并行数上限对应的页数
+         */
+        private int totalPages;
+
+        /**
+         * 是否有节点超时或失败，结果不完整
+         */
+        private boolean partial;
+
+        /**
+         * 各节点的查询结果
+         */
+        private List<NodeResult> nodeResults;
+    }
+
+
+    /**
+     * 集群文件列表，每个文件带有所属节点（node）
+     */
+    @Data
+    public static class ClusterFilesResponse {
+
+        private List<Map<String, Object>> files;
+
+        /**
+         * 是否有节点超时或失败，结果不完整
+         */
+        private boolean partial;
+
+        private List<NodeResult> nodeResults;
+    }
+
+
+    /**
+     * 单个节点的请求结果
+     */
+    @Data
+    public static class NodeResult {
+
+        /**
+         * 节点名称
+         */
+        private String node;
+
+        /**
+         * 节点地址，本节点为空
+         */
+        private String url;
+
+        /**
+         * ok、timeout、error
+         */
+        private String status;
+
+        /**
+         * 失败原因
+         */
+        private String message;
+
+        /**
+         * 节点匹配的总行数，文件列表时为文件数
+         */
+        private long total;
+
+        /**
+         * 请求耗时（毫秒）
+         */
+        private long elapsedMillis;
+    }
+}
@@ -0,0 +1,98 @@
+package com.wuuees.log.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+public class LogGeneratorDto {
+
+    /**
+     * 启动负载生成的参数
+     */
+    @Data
+    public static class GeneratorRequest {
+
+        /**
+         * 写入的文件名，位于日志根路径下
+         */
+        @NotBlank(message = "文件名称不能为空")
+        private String fileName = "load.log";
+
+        /**
+         * 每秒写入的日志条数（不含堆栈行）
+         */
+        @Min(value = 1, message = "写入速率必须大于0")
+        @Max(value = 1000000, message = "写入速率不能超过1000000")
+        private int linesPerSecond = 1000;
+
+        /**
+         * 持续时间（秒），0表示直到手动停止
+         */
+        @Min(value = 0, message = "持续时间不能小于0")
+        private int durationSeconds = 0;
+
+        /**
+         * 单个文件的最大大小（MB），超过后轮转
+         */
+        @Min(value = 1, message = "文件大小必须大于0")
+        private int maxFileSizeMb = 10;
+
+        /**
+         * 保留的轮转文件数，0表示原地截断
+         */
+        @Min(value = 0, message = "保留的文件数不能小于0")
+        @Max(value = 100, message = "保留的文件数不能超过100")
+        private int maxHistory = 5;
+    }
+
+
+    /**
+     * 负载生成状态
+     */
+    @Data
+    public static class GeneratorStatus {
+
+        private boolean running;
+
+        private String fileName;
+
+        /**
+         * 设定的写入速率
+         */
+        private int linesPerSecond;
+
+        /**
+         * 实际的平均写入速率（条/秒）
+         */
+        private long actualLinesPerSecond;
+
+        /**
+         * 已写入的日志条数，即最后一条的序号加1
+         */
+        private long entriesWritten;
+
+        /**
+         * 落后超过1秒而放弃写入的条数
+         */
+        private long entriesSkipped;
+
+        /**
+         * 已写入的行数，包括异常堆栈
+         */
+        private long linesWritten;
+
+        private long bytesWritten;
+
+        /**
+         * 轮转次数
+         */
+        private int rotations;
+
+        private LocalDateTime startedAt;
+
+        private LocalDateTime stoppedAt;
+    }
+}
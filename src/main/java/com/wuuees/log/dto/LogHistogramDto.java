@@ -0,0 +1,59 @@
+package com.wuuees.log.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public class LogHistogramDto {
+
+    @Data
+    public static class LogHistogramResponse {
+
+        /**
+         * 时间桶宽度（秒）
+         */
+        private int bucketSeconds;
+
+        /**
+         * 出现过的日志级别
+         */
+        private List<String> levels;
+
+        /**
+         * 按时间升序排列的时间桶
+         */
+        private List<Bucket> buckets;
+
+        /**
+         * 统计的日志行数（不含无时间戳的行）
+         */
+        private long totalLines;
+
+        /**
+         * 本次实际扫描的字节数，命中缓存的文件不计入
+         */
+        private long scannedBytes;
+
+        /**
+         * 命中缓存的文件数
+         */
+        private int cachedFiles;
+    }
+
+
+    @Data
+    public static class Bucket {
+
+        /**
+         * 时间桶开始时间
+         */
+        private LocalDateTime time;
+
+        /**
+         * 各级别的行数
+         */
+        private Map<String, Long> counts;
+    }
+}
@@ -37,8 +37,9 @@ public class LogLineInfo {
             return false;
         }
 
-        // 关键字过滤
-        if (StringUtils.isNoneBlank(req.getKeyword()) && !StringUtils.containsIgnoreCase(originalLine, req.getKeyword())) {
+        // 关键字过滤，正则表达式在解析前已由LogService匹配
+        if (StringUtils.isNoneBlank(req.getKeyword()) && !req.isRegex()
+                && !StringUtils.containsIgnoreCase(originalLine, req.getKeyword())) {
             return false;
         }
         return true;
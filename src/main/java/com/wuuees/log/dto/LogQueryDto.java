@@ -4,10 +4,12 @@ import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 
 import java.time.LocalDateTime;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 public class LogQueryDto {
 
@@ -36,11 +38,21 @@ public class LogQueryDto {
          */
         private String keyword;
 
+        /**
+         * 关键字是否为正则表达式
+         */
+        private boolean regex = false;
+
         /**
          * 日志过滤级别
          */
         private String level;
 
+        /**
+         * JSON 日志的字段过滤，字段名到期望值，只匹配顶层字段
+         */
+        private Map<String, String> fields;
+
         /**
          * 开始时间
          */
@@ -56,6 +68,101 @@ public class LogQueryDto {
          * 是否倒叙
          */
         private boolean reverse = true;
+
+        /**
+         * 命中行之前的上下文行数，与 grep -B 相同
+         */
+        @Min(value = 0, message = "上下文行数不能小于0")
+        @Max(value = 100, message = "上下文行数不能超过100")
+        private int beforeContext = 0;
+
+        /**
+         * 命中行之后的上下文行数，与 grep -A 相同
+         */
+        @Min(value = 0, message = "上下文行数不能小于0")
+        @Max(value = 100, message = "上下文行数不能超过100")
+        private int afterContext = 0;
+
+        /**
+         * 排除行数最多的前N个日志模板，0表示不排除
+         */
+        @Min(value = 0, message = "排除的模板数不能小于0")
+        private int excludeTopTemplates = 0;
+    }
+
+
+    /**
+     * 流式查询请求，reverse为true时从游标位置向文件开头读取
+     */
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    public static class LogStreamRequest extends LogQueryRequest {
+
+        /**
+         * 游标，为空时从文件开头（顺序）或末尾（倒序）开始
+         */
+        private String cursor;
+
+        /**
+         * 最多返回的匹配行数
+         */
+        @Min(value = 1, message = "返回行数必须大于0")
+        private int limit = 1000;
+    }
+
+
+    /**
+     * 流式查询返回的一行日志
+     */
+    @Data
+    public static class LogStreamLine {
+
+        private final String type = "line";
+
+        /**
+         * 日志内容
+         */
+        private String line;
+
+        /**
+         * 从该行之后（倒序时为之前）继续读取的游标，上下文行为null
+         */
+        private String cursor;
+
+        /**
+         * 是否为上下文行
+         */
+        private boolean context;
+    }
+
+
+    /**
+     * 流式查询结束标记
+     */
+    @Data
+    public static class LogStreamEnd {
+
+        private final String type = "end";
+
+        /**
+         * 继续读取的游标
+         */
+        private String nextCursor;
+
+        /**
+         * 是否已读到文件开头（倒序）或末尾（顺序）
+         */
+        private boolean eof;
+
+        /**
+         * 返回的匹配行数
+         */
+        private int matched;
+
+        /**
+         * 扫描的字节数
+         */
+        private long scannedBytes;
     }
 
 
@@ -69,7 +176,17 @@ public class LogQueryDto {
         private List<String> lines;
 
         /**
-         * 总行数
+         * 每行在文件中的行号（从1开始），仅在请求上下文时返回
+         */
+        private List<Integer> lineNumbers;
+
+        /**
+         * 每行是否为上下文行，仅在请求上下文时返回
+         */
+        private List<Boolean> context;
+
+        /**
+         * 总行数，请求上下文时包含上下文行，不等于命中行数
          */
         private long totalLines;
 
@@ -79,7 +196,7 @@ public class LogQueryDto {
         private int currentPage;
 
         /**
-         * 总页数
+         * 总页数，按包含上下文行的总行数计算
          */
         private int totalPages;
 
@@ -95,4 +212,90 @@ public class LogQueryDto {
 
     }
 
+
+    /**
+     * 列式编码的查询结果
+     * <p>
+     * 第 i 行由各列的第 i 个元素组成：级别、线程、日志器为字典下标，时间为与上一行的毫秒差值。
+     * 无法按标准格式还原的行（JSON 日志、异常堆栈等）级别下标为 -1，原始行放在 messages 中。
+     */
+    @Data
+    public static class LogColumnarResponse {
+
+        /**
+         * 级别字典
+         */
+        private List<String> levelDict;
+
+        /**
+         * 线程字典
+         */
+        private List<String> threadDict;
+
+        /**
+         * 日志器字典
+         */
+        private List<String> loggerDict;
+
+        /**
+         * 时间戳差值（毫秒），第一行为相对 1970-01-01 00:00:00 的毫秒数
+         */
+        private long[] timeDeltas;
+
+        /**
+         * 级别下标，-1 表示原始行
+         */
+        private int[] levels;
+
+        /**
+         * 线程下标
+         */
+        private int[] threads;
+
+        /**
+         * 日志器下标
+         */
+        private int[] loggers;
+
+        /**
+         * 消息内容，原始行时为整行
+         */
+        private List<String> messages;
+
+        /**
+         * 每行在文件中的行号（从1开始），仅在请求上下文时返回
+         */
+        private List<Integer> lineNumbers;
+
+        /**
+         * 每行是否为上下文行，仅在请求上下文时返回
+         */
+        private List<Boolean> context;
+
+        /**
+         * 总行数，请求上下文时包含上下文行，不等于命中行数
+         */
+        private long totalLines;
+
+        /**
+         * 当前页码
+         */
+        private int currentPage;
+
+        /**
+         * 总页数，按包含上下文行的总行数计算
+         */
+        private int totalPages;
+
+        /**
+         * 文件大小（字节）
+         */
+        private Long fileSize;
+
+        /**
+         * 最后修改时间
+         */
+        private LocalDateTime lastModified;
+    }
+
 }
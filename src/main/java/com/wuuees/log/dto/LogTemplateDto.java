@@ -0,0 +1,72 @@
+package com.wuuees.log.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+public class LogTemplateDto {
+
+    @Data
+    public static class LogTemplateResponse {
+
+        /**
+         * 已归类的日志行数
+         */
+        private long totalLines;
+
+        /**
+         * 当前保留的模板数
+         */
+        private int templateCount;
+
+        /**
+         * 因超出上限而淘汰的模板数
+         */
+        private long evictedTemplates;
+
+        /**
+         * 本次等待的归类扫描的字节数，之前已归类的部分不再扫描；归类未完成时为0
+         */
+        private long scannedBytes;
+
+        /**
+         * 后台归类尚未完成，返回的是已归类部分的结果，稍后重试即可
+         */
+        private boolean scanning;
+
+        /**
+         * 按行数降序排列的模板
+         */
+        private List<Template> templates;
+    }
+
+
+    @Data
+    public static class Template {
+
+        /**
+         * 模板编号，同一文件内唯一
+         */
+        private long id;
+
+        /**
+         * 模板内容，变量部分为 <*>
+         */
+        private String template;
+
+        /**
+         * 行数
+         */
+        private long count;
+
+        /**
+         * 第一次出现的行偏移量（字节）
+         */
+        private long firstOffset;
+
+        /**
+         * 最后一次出现的行偏移量（字节）
+         */
+        private long lastOffset;
+    }
+}
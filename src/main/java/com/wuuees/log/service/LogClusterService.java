@@ -0,0 +1,327 @@
+package com.wuuees.log.service;
+
+import com.wuuees.log.config.LogConfigProperties;
+import com.wuuees.log.dto.LogClusterDto;
+import com.wuuees.log.dto.LogQueryDto;
+import com.wuuees.log.util.LogMerger;
+import com.wuuees.log.util.LogParser;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * 集群查询：将查询和文件列表并发发送到本节点和配置的其他节点，按时间合并结果
+ * <p>
+ * 所有节点同时请求，整体耗时取决于最慢的节点，且不超过 cluster-timeout-millis。
+ * 超时或失败的节点不计入结果，响应中标记为部分结果。其他节点只调用普通查询接口，不会再次转发。
+ * <p>
+ * 请求在有界线程池中执行，队列已满时该节点记为失败。本节点的查询到截止时间后自行停止扫描，
+ * 其他节点的请求受读取超时限制，截止时间之后才开始执行的请求直接放弃。
+ */
+@Service
+@Slf4j
+public class LogClusterService implements InitializingBean, DisposableBean {
+
+    // 合并的最多行数，与节点单页行数上限一致
+    private static final int MAX_MERGED_LINES = 1000;
+
+    // 请求各节点的最大线程数
+    private static final int MAX_THREADS = 16;
+
+    // 等待执行的最大请求数，超出时拒绝
+    private static final int MAX_QUEUED = 64;
+
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> FILE_LIST_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    @Autowired
+    private LogConfigProperties logConfigProperties;
+
+    @Autowired
+    private LogService logService;
+
+    @Autowired
+    private LogParser logParser;
+
+    @Autowired
+    private LogMetricsService logMetricsService;
+
+    @Autowired
+    private RestClient.Builder restClientBuilder;
+
+    private RestClient restClient;
+
+    // 请求各节点的线程池
+    private ExecutorService executorService;
+
+
+    @Override
+    public void afterPropertiesSet() {
+        Duration timeout = Duration.ofMillis(logConfigProperties.getClusterTimeoutMillis());
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(
+                HttpClient.newBuilder().connectTimeout(timeout).build());
+        requestFactory.setReadTimeout(timeout);
+        restClient = restClientBuilder.requestFactory(requestFactory).build();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(MAX_QUEUED));
+        executor.allowCoreThreadTimeOut(true);
+        executorService = executor;
+        if (!logConfigProperties.getClusterPeers().isEmpty()) {
+            log.info("集群查询已启用，其他节点: {}", logConfigProperties.getClusterPeers());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * 查询所有节点的文件列表
+     */
+    public LogClusterDto.ClusterFilesResponse getLogFiles() {
+        List<NodeCall<List<Map<String, Object>>>> calls = fanOut(
+                deadline -> logService.getLogFiles(),
+                url -> restClient.get().uri(url + "/api/logs/files").retrieve().body(FILE_LIST_TYPE));
+
+        List<Map<String, Object>> files = new ArrayList<>();
+        for (NodeCall<List<Map<String, Object>>> call : calls) {
+            if (call.value == null) {
+                continue;
+            }
+            call.result.setTotal(call.value.size());
+            for (Map<String, Object> file : call.value) {
+                Map<String, Object> copy = new LinkedHashMap<>(file);
+                copy.put("node", call.result.getNode());
+                files.add(copy);
+            }
+        }
+        files.sort(Comparator.comparing((Map<String, Object> file) ->
+                ((Number) file.get("lastModified")).longValue()).reversed());
+
+        LogClusterDto.ClusterFilesResponse response = new LogClusterDto.ClusterFilesResponse();
+        response.setFiles(files);
+        response.setNodeResults(nodeResults(calls));
+        response.setPartial(partial(calls));
+        return response;
+    }
+
+    /**
+     * 查询所有节点的同名文件，按时间合并后分页
+     * <p>
+     * 每个节点返回前 page * pageSize 行，合并后取第 page 页，因此最多只能翻到合并后的前 1000 行。
+     */
+    public LogClusterDto.ClusterQueryResponse queryLogs(LogQueryDto.LogQueryRequest req) {
+        int mergedLines = req.getPage() * req.getPageSize();
+        if (mergedLines > MAX_MERGED_LINES) {
+            throw new IllegalArgumentException("集群查询最多返回前" + MAX_MERGED_LINES + "行，请缩小查询条件");
+        }
+        LogQueryDto.LogQueryRequest nodeRequest = new LogQueryDto.LogQueryRequest();
+        BeanUtils.copyProperties(req, nodeRequest);
+        nodeRequest.setPage(1);
+        nodeRequest.setPageSize(mergedLines);
+
+        List<NodeCall<LogQueryDto.LogQueryResponse>> calls = fanOut(
+                deadline -> logService.queryLogs(nodeRequest, deadline),
+                url -> restClient.post().uri(url + "/api/logs/query").body(nodeRequest).retrieve()
+                        .body(LogQueryDto.LogQueryResponse.class));
+
+        List<NodeCall<LogQueryDto.LogQueryResponse>> succeeded = new ArrayList<>();
+        List<List<String>> sources = new ArrayList<>();
+        long totalLines = 0;
+        for (NodeCall<LogQueryDto.LogQueryResponse> call : calls) {
+            if (call.value == null) {
+                continue;
+            }
+            call.result.setTotal(call.value.getTotalLines());
+            totalLines += call.value.getTotalLines();
+            succeeded.add(call);
+            sources.add(call.value.getLines() != null ? call.value.getLines() : List.of());
+        }
+
+        List<LogMerger.Position> merged = LogMerger.merge(sources,
+                line -> logParser.parseTimeAndLevel(line).getTimestamp(), req.isReverse());
+        int from = Math.min((req.getPage() - 1) * req.getPageSize(), merged.size());
+        int to = Math.min(from + req.getPageSize(), merged.size());
+
+        List<String> lines = new ArrayList<>(to - from);
+        List<String> nodes = new ArrayList<>(to - from);
+        List<Integer> lineNumbers = new ArrayList<>(to - from);
+        List<Boolean> context = new ArrayList<>(to - from);
+        boolean hasLineNumbers = false;
+        for (LogMerger.Position position : merged.subList(from, to)) {
+            NodeCall<LogQueryDto.LogQueryResponse> call = succeeded.get(position.getSource());
+            LogQueryDto.LogQueryResponse value = call.value;
+            int index = position.getIndex();
+            lines.add(value.getLines().get(index));
+            nodes.add(call.result.getNode());
+            if (value.getLineNumbers() != null) {
+                lineNumbers.add(value.getLineNumbers().get(index));
+                hasLineNumbers = true;
+            } else {
+                lineNumbers.add(null);
+            }
+            context.add(value.getContext() != null && value.getContext().get(index));
+        }
+
+        LogClusterDto.ClusterQueryResponse response = new LogClusterDto.ClusterQueryResponse();
+        response.setLines(lines);
+        response.setNodes(nodes);
+        // 各节点都未返回行号（未查询上下文）时不返回
+        response.setLineNumbers(hasLineNumbers ? lineNumbers : null);
+        response.setContext(context);
+        response.setTotalLines(totalLines);
+        response.setCurrentPage(req.getPage());
+        response.setTotalPages((int) Math.min(Math.ceil((double) totalLines / req.getPageSize()),
+                MAX_MERGED_LINES / req.getPageSize()));
+        response.setNodeResults(nodeResults(calls));
+        response.setPartial(partial(calls));
+        return response;
+    }
+
+    /**
+     * 并发请求本节点和所有其他节点，等待到全部返回或超时
+     *
+     * @param local  本节点的查询，参数为截止时间（System.nanoTime()）
+     * @param remote 按节点地址请求其他节点
+     */
+    private <T> List<NodeCall<T>> fanOut(LongFunction<T> local, Function<String, T> remote) {
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(logConfigProperties.getClusterTimeoutMillis());
+        long deadline = System.nanoTime() + timeoutNanos;
+
+        List<NodeCall<T>> calls = new ArrayList<>();
+        calls.add(submit(logConfigProperties.getClusterNodeName(), null, deadline, () -> local.apply(deadline)));
+        for (String peer : logConfigProperties.getClusterPeers()) {
+            String url = StringUtils.removeEnd(peer.trim(), "/");
+            calls.add(submit(nodeName(url), url, deadline, () -> remote.apply(url)));
+        }
+
+        for (NodeCall<T> call : calls) {
+            LogClusterDto.NodeResult result = call.result;
+            try {
+                call.value = call.future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                result.setStatus("ok");
+            } catch (TimeoutException e) {
+                // 不再等待结果，仍在执行的查询按截止时间或读取超时自行结束
+                call.future.cancel(false);
+                result.setStatus("timeout");
+                result.setMessage("超过" + logConfigProperties.getClusterTimeoutMillis() + "毫秒未返回");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (isTimeout(cause)) {
+                    result.setStatus("timeout");
+                    result.setMessage("超过" + logConfigProperties.getClusterTimeoutMillis() + "毫秒未返回");
+                } else {
+                    result.setStatus("error");
+                    result.setMessage(cause instanceof RestClientResponseException responseException
+                            ? "HTTP " + responseException.getStatusCode().value()
+                            : cause instanceof RejectedExecutionException
+                            ? "集群查询繁忙，请稍后重试"
+                            : ExceptionUtils.getRootCauseMessage(cause));
+                }
+                log.warn("集群节点查询失败: {} {}", result.getNode(), result.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                call.future.cancel(false);
+                result.setStatus("error");
+                result.setMessage("查询被中断");
+            }
+            long elapsedNanos = call.elapsedNanos > 0 ? call.elapsedNanos : System.nanoTime() - call.startNanos;
+            result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            logMetricsService.recordClusterNode(result.getNode(), result.getStatus(), elapsedNanos);
+        }
+        return calls;
+    }
+
+    private <T> NodeCall<T> submit(String node, String url, long deadline, Supplier<T> task) {
+        NodeCall<T> call = new NodeCall<>();
+        call.result.setNode(node);
+        call.result.setUrl(url);
+        call.startNanos = System.nanoTime();
+        try {
+            call.future = CompletableFuture.supplyAsync(() -> {
+                try {
+                    // 排队到截止时间之后的请求不再执行
+                    if (System.nanoTime() - deadline > 0) {
+                        throw new CancellationException("等待执行时已超时");
+                    }
+                    return task.get();
+                } finally {
+                    call.elapsedNanos = System.nanoTime() - call.startNanos;
+                }
+            }, executorService);
+        } catch (RejectedExecutionException e) {
+            call.future = CompletableFuture.failedFuture(e);
+        }
+        return call;
+    }
+
+    private static <T> List<LogClusterDto.NodeResult> nodeResults(List<NodeCall<T>> calls) {
+        return calls.stream().map(call -> call.result).toList();
+    }
+
+    /**
+     * 有节点超时或失败时为部分结果
+     */
+    private static <T> boolean partial(List<NodeCall<T>> calls) {
+        return calls.stream().anyMatch(call -> call.value == null);
+    }
+
+    /**
+     * 节点名称取地址中的主机和端口
+     */
+    private static String nodeName(String url) {
+        try {
+            String authority = URI.create(url).getAuthority();
+            return authority != null ? authority : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    private static boolean isTimeout(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpTimeoutException || cause instanceof CancellationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * 对一个节点的请求
+     */
+    private static class NodeCall<T> {
+
+        private final LogClusterDto.NodeResult result = new LogClusterDto.NodeResult();
+
+        private CompletableFuture<T> future;
+
+        private T value;
+
+        private long startNanos;
+
+        private volatile long elapsedNanos;
+    }
+}
@@ -0,0 +1,262 @@
+package com.wuuees.log.service;
+
+import com.wuuees.log.config.LogConfigProperties;
+import com.wuuees.log.dto.LogGeneratorDto;
+import com.wuuees.log.util.LogLineGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 负载生成：按设定速率向日志目录写入模拟日志，用于在本地复现生产规模的写入压力
+ * <p>
+ * 每10毫秒按已运行时间补齐应写入的条数，每条日志内容末尾带有序号标记，便于统计实时推送丢失的行。
+ * 落后超过1秒时放弃多出的部分，之后按设定速率继续写入。
+ * 文件超过设定大小后按 app.log → app.1.log → app.2.log 的方式轮转，不保留轮转文件时原地截断。
+ */
+@Service
+@Slf4j
+public class LogGeneratorService implements DisposableBean {
+
+    // 写入周期（毫秒）
+    private static final long WRITE_PERIOD_MILLIS = 10;
+
+    // 落后时最多补写的时长（毫秒），超出的部分放弃，避免长时间停顿后持续突发写入
+    private static final long MAX_CATCH_UP_MILLIS = 1000;
+
+    @Autowired
+    private LogConfigProperties logConfigProperties;
+
+    @Autowired
+    private LogService logService;
+
+    private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+
+    // 最近一次的生成任务
+    private Generation current;
+
+
+    @Override
+    public void destroy() {
+        stop();
+        executorService.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return logConfigProperties.isGeneratorEnabled();
+    }
+
+    /**
+     * 开始生成日志，写入到已有文件的末尾
+     *
+     * @throws IllegalStateException    已有生成任务在运行
+     * @throws IllegalArgumentException 文件名非法或类型不支持，规则与查询相同
+     */
+    public synchronized LogGeneratorDto.GeneratorStatus start(LogGeneratorDto.GeneratorRequest req) throws IOException {
+        if (current != null && current.running) {
+            throw new IllegalStateException("负载生成正在运行: " + current.file.getName());
+        }
+        File file = logService.resolveWritableLogFile(req.getFileName());
+        Files.createDirectories(file.getParentFile().toPath());
+        Generation generation = new Generation(file, req);
+        generation.output = new FileOutputStream(generation.file, true);
+        generation.fileBytes = generation.file.length();
+        generation.future = executorService.scheduleAtFixedRate(() -> write(generation),
+                0, WRITE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        current = generation;
+        log.info("开始生成日志: {}，{} 条/秒", file.getName(), req.getLinesPerSecond());
+        return generation.status();
+    }
+
+    /**
+     * 停止生成
+     */
+    public synchronized LogGeneratorDto.GeneratorStatus stop() {
+        if (current == null) {
+            return idleStatus();
+        }
+        finish(current);
+        return current.status();
+    }
+
+    public synchronized LogGeneratorDto.GeneratorStatus status() {
+        return current != null ? current.status() : idleStatus();
+    }
+
+    /**
+     * 补齐到当前时间应写入的条数
+     */
+    private synchronized void write(Generation generation) {
+        if (!generation.running) {
+            return;
+        }
+        try {
+            long elapsed = System.nanoTime() - generation.startNanos;
+            long rate = generation.request.getLinesPerSecond();
+            if (generation.request.getDurationSeconds() > 0
+                    && elapsed >= TimeUnit.SECONDS.toNanos(generation.request.getDurationSeconds())) {
+                finish(generation);
+                return;
+            }
+            long expected = (long) (rate * (elapsed / 1e9)) - generation.skipped;
+            long due = expected - generation.sequence;
+            long maxDue = rate * MAX_CATCH_UP_MILLIS / 1000 + 1;
+            if (due > maxDue) {
+                // 放弃积压，否则之后的每个周期都会按上限突发写入
+                generation.skipped += due - maxDue;
+                due = maxDue;
+            }
+            if (due <= 0) {
+                return;
+            }
+
+            StringBuilder sb = new StringBuilder((int) Math.min(due * 160, Integer.MAX_VALUE - 8));
+            LocalDateTime now = LocalDateTime.now();
+            for (long i = 0; i < due; i++) {
+                LogLineGenerator.appendLine(sb, generation.random, now, generation.sequence++);
+            }
+            for (int i = 0; i < sb.length(); i++) {
+                if (sb.charAt(i) == '\n') {
+                    generation.lines++;
+                }
+            }
+            byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+            generation.output.write(bytes);
+            generation.output.flush();
+            generation.bytes += bytes.length;
+            generation.fileBytes += bytes.length;
+
+            if (generation.fileBytes >= generation.request.getMaxFileSizeMb() * 1024L * 1024L) {
+                rotate(generation);
+            }
+        } catch (Exception e) {
+            log.error("生成日志失败: {}", generation.file.getName(), e);
+            finish(generation);
+        }
+    }
+
+    /**
+     * 轮转文件：app.log → app.1.log，已有的 app.N.log 依次后移，超出保留数的删除
+     * <p>
+     * 不保留轮转文件时原地截断，不删除正在被读取的文件
+     */
+    private void rotate(Generation generation) throws IOException {
+        generation.output.close();
+        File file = generation.file;
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        String base = name.substring(0, dot);
+        String extension = name.substring(dot);
+        int maxHistory = generation.request.getMaxHistory();
+        for (int i = maxHistory; i >= 1; i--) {
+            File source = i == 1 ? file : new File(file.getParentFile(), base + "." + (i - 1) + extension);
+            if (source.exists()) {
+                Files.move(source.toPath(), new File(file.getParentFile(), base + "." + i + extension).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        generation.output = new FileOutputStream(file, false);
+        generation.fileBytes = 0;
+        generation.rotations++;
+    }
+
+    private void finish(Generation generation) {
+        if (!generation.running) {
+            return;
+        }
+        generation.running = false;
+        generation.stoppedAt = LocalDateTime.now();
+        generation.future.cancel(false);
+        try {
+            generation.output.close();
+        } catch (IOException e) {
+            log.warn("关闭文件失败: {}", generation.file.getName(), e);
+        }
+        log.info("停止生成日志: {}，共 {} 条", generation.file.getName(), generation.sequence);
+    }
+
+    private LogGeneratorDto.GeneratorStatus idleStatus() {
+        return new LogGeneratorDto.GeneratorStatus();
+    }
+
+
+    /**
+     * 一次生成任务
+     */
+    private static class Generation {
+
+        private final File file;
+
+        private final LogGeneratorDto.GeneratorRequest request;
+
+        // 固定种子，相同速率下生成的内容相同
+        private final Random random = new Random(42);
+
+        private final long startNanos = System.nanoTime();
+
+        private final LocalDateTime startedAt = LocalDateTime.now();
+
+        private LocalDateTime stoppedAt;
+
+        private volatile boolean running = true;
+
+        private OutputStream output;
+
+        private ScheduledFuture<?> future;
+
+        // 下一条日志的序号，即已写入的条数
+        private long sequence;
+
+        // 落后过多而放弃的条数
+        private long skipped;
+
+        // 写入的行数，包括异常堆栈
+        private long lines;
+
+        private long bytes;
+
+        // 当前文件的大小
+        private long fileBytes;
+
+        private int rotations;
+
+        Generation(File file, LogGeneratorDto.GeneratorRequest request) {
+            this.file = file;
+            this.request = request;
+        }
+
+        LogGeneratorDto.GeneratorStatus status() {
+            LogGeneratorDto.GeneratorStatus status = new LogGeneratorDto.GeneratorStatus();
+            status.setRunning(running);
+            status.setFileName(file.getName());
+            status.setLinesPerSecond(request.getLinesPerSecond());
+            long elapsed = (stoppedAt != null ? Duration.between(startedAt, stoppedAt)
+                    : Duration.between(startedAt, LocalDateTime.now())).toMillis();
+            status.setActualLinesPerSecond(elapsed > 0 ? sequence * 1000 / elapsed : 0);
+            status.setEntriesWritten(sequence);
+            status.setEntriesSkipped(skipped);
+            status.setLinesWritten(lines);
+            status.setBytesWritten(bytes);
+            status.setRotations(rotations);
+            status.setStartedAt(startedAt);
+            status.setStoppedAt(stoppedAt);
+            return status;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.wuuees.log.service;
+
+import com.wuuees.log.dto.LogHistogramDto;
+import com.wuuees.log.dto.LogLineInfo;
+import com.wuuees.log.util.LineCursorReader;
+import com.wuuees.log.util.LogParser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 按时间桶统计各级别日志行数，用于绘制时间分布图
+ */
+@Service
+@Slf4j
+public class LogHistogramService implements DisposableBean {
+
+    // 超过该时长未修改的文件视为已关闭，统计结果可以缓存
+    private static final long CLOSED_FILE_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    // 缓存的文件统计结果数
+    private static final int MAX_CACHED_FILES = 256;
+
+    // 并行统计时每块的大小
+    private static final long CHUNK_SIZE = 8L * 1024 * 1024;
+
+    // 单次返回的最大时间桶数
+    private static final int MAX_BUCKETS = 10000;
+
+    // 级别的展示顺序，其余级别按字母顺序排在后面
+    private static final List<String> LEVEL_ORDER = List.of("ERROR", "WARN", "INFO", "DEBUG", "TRACE");
+
+    @Autowired
+    private LogService logService;
+
+    @Autowired
+    private LogParser logParser;
+
+    @Autowired
+    private LogMetricsService logMetricsService;
+
+    // 分块读取文件的线程池，不占用公共 ForkJoinPool
+    private final ExecutorService executorService =
+            Executors.newFixedThreadPool(Math.max(Runtime.getRuntime().availableProcessors(), 2));
+
+    // 每块的大小，包内可见供测试调小
+    long chunkSize = CHUNK_SIZE;
+
+    // 已关闭文件的统计结果，key为文件路径和桶宽度
+    private final Map<String, FileHistogram> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, FileHistogram> eldest) {
+                    return size() > MAX_CACHED_FILES;
+                }
+            });
+
+
+    @Override
+    public void destroy() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * 统计一个或多个文件的级别时间分布
+     *
+     * @param fileNames     文件名
+     * @param bucketSeconds 时间桶宽度（秒）
+     * @param startTime     开始时间，可为空
+     * @param endTime       结束时间，可为空
+     */
+    public LogHistogramDto.LogHistogramResponse histogram(List<String> fileNames, int bucketSeconds,
+                                                          LocalDateTime startTime, LocalDateTime endTime) {
+        if (fileNames == null || fileNames.isEmpty()) {
+            throw new IllegalArgumentException("文件名称不能为空");
+        }
+        if (bucketSeconds < 1) {
+            throw new IllegalArgumentException("时间桶宽度必须大于0");
+        }
+
+        long startKey = startTime != null ? bucketKey(startTime, bucketSeconds) : Long.MIN_VALUE;
+        long endKey = endTime != null ? bucketKey(endTime, bucketSeconds) : Long.MAX_VALUE;
+
+        TreeMap<Long, Map<String, Long>> merged = new TreeMap<>();
+        long totalLines = 0;
+        long scannedBytes = 0;
+        int cachedFiles = 0;
+        for (String fileName : new LinkedHashSet<>(fileNames)) {
+            File file = logService.resolveLogFile(fileName);
+            String cacheKey = file.getAbsolutePath() + ":" + bucketSeconds;
+            FileHistogram histogram = cache.get(cacheKey);
+            if (histogram != null && histogram.isValidFor(file)) {
+                cachedFiles++;
+            } else {
+                histogram = compute(file, bucketSeconds);
+                scannedBytes += histogram.length;
+                if (System.currentTimeMillis() - histogram.lastModified > CLOSED_FILE_IDLE_MILLIS) {
+                    cache.put(cacheKey, histogram);
+                }
+            }
+
+            for (Map.Entry<Long, Map<String, long[]>> bucket
+                    : histogram.buckets.subMap(startKey, true, endKey, true).entrySet()) {
+                Map<String, Long> counts = merged.computeIfAbsent(bucket.getKey(), key -> new HashMap<>());
+                for (Map.Entry<String, long[]> level : bucket.getValue().entrySet()) {
+                    counts.merge(level.getKey(), level.getValue()[0], Long::sum);
+                    totalLines += level.getValue()[0];
+                }
+            }
+            if (merged.size() > MAX_BUCKETS) {
+                throw new IllegalArgumentException(String.format("时间桶数量超过 %d，请增大桶宽度或缩小时间范围", MAX_BUCKETS));
+            }
+        }
+
+        LogHistogramDto.LogHistogramResponse response = new LogHistogramDto.LogHistogramResponse();
+        response.setBucketSeconds(bucketSeconds);
+        response.setLevels(merged.values().stream()
+                .flatMap(counts -> counts.keySet().stream())
+                .distinct()
+                .sorted(Comparator.comparingInt((String level) -> {
+                    int idx = LEVEL_ORDER.indexOf(level);
+                    return idx >= 0 ? idx : LEVEL_ORDER.size();
+                }).thenComparing(Comparator.naturalOrder()))
+                .collect(Collectors.toList()));
+        response.setBuckets(merged.entrySet().stream().map(entry -> {
+            LogHistogramDto.Bucket bucket = new LogHistogramDto.Bucket();
+            bucket.setTime(LocalDateTime.ofEpochSecond(entry.getKey(), 0, ZoneOffset.UTC));
+            bucket.setCounts(entry.getValue());
+            return bucket;
+        }).collect(Collectors.toList()));
+        response.setTotalLines(totalLines);
+        response.setScannedBytes(scannedBytes);
+        response.setCachedFiles(cachedFiles);
+        return response;
+    }
+
+    /**
+     * 将文件按块并行统计后合并
+     */
+    private FileHistogram compute(File file, int bucketSeconds) {
+        long lastModified = file.lastModified();
+        long length = file.length();
+        long size = chunkSize;
+        int chunks = (int) Math.max(1, (length + size - 1) / size);
+
+        List<CompletableFuture<TreeMap<Long, Map<String, long[]>>>> futures = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            long chunkStart = i * size;
+            long chunkEnd = Math.min(chunkStart + size, length);
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> countChunk(file, length, chunkStart, chunkEnd, bucketSeconds), executorService));
+        }
+        TreeMap<Long, Map<String, long[]>> buckets = new TreeMap<>();
+        try {
+            for (CompletableFuture<TreeMap<Long, Map<String, long[]>>> future : futures) {
+                mergeInto(buckets, future.join());
+            }
+        } catch (CompletionException ex) {
+            futures.forEach(future -> future.cancel(false));
+            throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : ex;
+        }
+        return new FileHistogram(length, lastModified, buckets);
+    }
+
+    /**
+     * 统计起始位置落在 [chunkStart, chunkEnd) 内的日志行
+     */
+    private TreeMap<Long, Map<String, long[]>> countChunk(File file, long length, long chunkStart, long chunkEnd,
+                                                          int bucketSeconds) {
+        TreeMap<Long, Map<String, long[]>> buckets = new TreeMap<>();
+        long parsed = 0;
+        try (LineCursorReader reader = LineCursorReader.forward(file, Math.max(chunkStart - 1, 0), length)) {
+            if (chunkStart > 0) {
+                // 跳过跨越块边界的行，它属于上一块
+                reader.next();
+            }
+            long currentKey = Long.MIN_VALUE;
+            Map<String, long[]> current = null;
+            LineCursorReader.Line line;
+            while ((line = reader.next()) != null && line.getStart() < chunkEnd) {
+                parsed++;
+                LogLineInfo info = logParser.parseTimeAndLevel(line.getText());
+                if (info.getTimestamp() == null || info.getLevel() == null) {
+                    continue;
+                }
+                long key = bucketKey(info.getTimestamp(), bucketSeconds);
+                if (key != currentKey || current == null) {
+                    currentKey = key;
+                    current = buckets.computeIfAbsent(key, k -> new HashMap<>());
+                }
+                current.computeIfAbsent(info.getLevel().toUpperCase(), k -> new long[1])[0]++;
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("读取日志文件失败: " + file.getName(), ex);
+        }
+        logMetricsService.recordLinesParsed("histogram", parsed);
+        return buckets;
+    }
+
+    /**
+     * 将一块的统计结果累加到 target，chunk 的计数数组直接复用
+     */
+    private void mergeInto(TreeMap<Long, Map<String, long[]>> target, TreeMap<Long, Map<String, long[]>> chunk) {
+        chunk.forEach((key, counts) -> {
+            Map<String, long[]> existing = target.putIfAbsent(key, counts);
+            if (existing != null) {
+                counts.forEach((level, count) -> existing.merge(level, count, (a, b) -> {
+                    a[0] += b[0];
+                    return a;
+                }));
+            }
+        });
+    }
+
+    private long bucketKey(LocalDateTime time, int bucketSeconds) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), bucketSeconds) * bucketSeconds;
+    }
+
+
+    /**
+     * 单个文件的统计结果
+     */
+    private static class FileHistogram {
+
+        private final long length;
+
+        private final long lastModified;
+
+        private final TreeMap<Long, Map<String, long[]>> buckets;
+
+        FileHistogram(long length, long lastModified, TreeMap<Long, Map<String, long[]>> buckets) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.buckets = buckets;
+        }
+
+        boolean isValidFor(File file) {
+            return file.length() == length && file.lastModified() == lastModified;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.wuuees.log.service;
+
+import com.wuuees.log.dto.LogQueryDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 日志查询、下载和实时推送的监控指标，通过 Actuator 的 /actuator/metrics 和 /actuator/prometheus 暴露
+ */
+@Service
+public class LogMetricsService {
+
+    private static final String PREFIX = "wuuees.log.";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 每个主题待发送的消息数
+    private final Map<String, AtomicLong> topicQueueDepths = new ConcurrentHashMap<>();
+
+    // 已注册的指标，按名称和标签值缓存，避免每次记录都经过 builder 查找注册表
+    private final Map<String, Object> meters = new ConcurrentHashMap<>();
+
+
+    /**
+     * 记录一次查询
+     *
+     * @param mode          查询方式：page、stream
+     * @param filterType    过滤类型
+     * @param nanos         耗时（纳秒）
+     * @param bytesScanned  扫描的字节数
+     * @param bytesReturned 返回的字节数
+     */
+    public void recordQuery(String mode, String filterType, long nanos, long bytesScanned, long bytesReturned) {
+        this.<Timer>meter("query|" + mode + "|" + filterType, () -> Timer.builder(PREFIX + "query")
+                .description("日志查询耗时")
+                .tag("mode", mode)
+                .tag("filter", filterType)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        bytesSummary(PREFIX + "query.bytes.scanned", "查询扫描的字节数", mode, filterType).record(bytesScanned);
+        bytesSummary(PREFIX + "query.bytes.returned", "查询返回的字节数", mode, filterType).record(bytesReturned);
+    }
+
+    /**
+     * 记录解析的日志行数
+     *
+     * @param source 来源：query、tail
+     * @param lines  行数
+     */
+    public void recordLinesParsed(String source, long lines) {
+        if (lines <= 0) {
+            return;
+        }
+        this.<Counter>meter("lines.parsed|" + source, () -> Counter.builder(PREFIX + "lines.parsed")
+                .description("解析的日志行数")
+                .tag("source", source)
+                .register(meterRegistry))
+                .increment(lines);
+    }
+
+    /**
+     * 记录一次下载
+     *
+     * @param filtered 是否为过滤后的下载
+     * @param nanos    耗时（纳秒）
+     * @param bytes    下载的字节数
+     */
+    public void recordDownload(boolean filtered, long nanos, long bytes) {
+        String tag = String.valueOf(filtered);
+        this.<Timer>meter("download|" + tag, () -> Timer.builder(PREFIX + "download")
+                .description("日志下载耗时")
+                .tag("filtered", tag)
+                .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        this.<Counter>meter("download.bytes|" + tag, () -> Counter.builder(PREFIX + "download.bytes")
+                .description("日志下载的字节数")
+                .baseUnit("bytes")
+                .tag("filtered", tag)
+                .register(meterRegistry))
+                .increment(bytes);
+    }
+
+    /**
+     * 记录一行日志的实时推送延迟，以日志行自身的时间戳近似写入时间
+     *
+     * @param lagMillis 推送完成时间与日志时间戳之差（毫秒）
+     */
+    public void recordTailLag(long lagMillis) {
+        this.<Timer>meter("tail.lag", () -> Timer.builder(PREFIX + "tail.lag")
+                .description("实时日志从日志时间戳到推送完成的延迟")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry))
+                .record(Duration.ofMillis(Math.max(lagMillis, 0)));
+    }
+
+    /**
+     * 记录丢弃的实时消息
+     *
+     * @param topic  主题
+     * @param reason 原因
+     * @param count  数量
+     */
+    public void recordDropped(String topic, String reason, long count) {
+        this.<Counter>meter("tail.dropped|" + topic + "|" + reason, () -> Counter.builder(PREFIX + "tail.dropped")
+                .description("实时推送丢弃的消息数")
+                .tag("topic", topic)
+                .tag("reason", reason)
+                .register(meterRegistry))
+                .increment(count);
+    }
+
+    /**
+     * 记录集群查询中一个节点的请求
+     *
+     * @param node   节点名称
+     * @param status 结果：ok、timeout、error
+     * @param nanos  耗时（纳秒）
+     */
+    public void recordClusterNode(String node, String status, long nanos) {
+        this.<Timer>meter("cluster.node|" + node + "|" + status, () -> Timer.builder(PREFIX + "cluster.node")
+                .description("集群查询中单个节点的请求耗时")
+                .tag("node", node)
+                .tag("status", status)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 主题的待发送消息数，首次访问时注册 Gauge
+     *
+     * @param topic 主题
+     * @return 待发送消息数
+     */
+    public AtomicLong topicQueueDepth(String topic) {
+        return topicQueueDepths.computeIfAbsent(topic, key -> {
+            AtomicLong depth = new AtomicLong();
+            Gauge.builder(PREFIX + "tail.queue.depth", depth, AtomicLong::get)
+                    .description("主题分发队列中待发送的消息数")
+                    .tag("topic", key)
+                    .register(meterRegistry);
+            return depth;
+        });
+    }
+
+    /**
+     * 查询的过滤类型，用作指标标签
+     */
+    public static String filterType(LogQueryDto.LogQueryRequest req) {
+        int count = 0;
+        String type = "none";
+        if (StringUtils.isNoneBlank(req.getKeyword())) {
+            count++;
+            type = "keyword";
+        }
+        if (StringUtils.isNoneBlank(req.getLevel())) {
+            count++;
+            type = "level";
+        }
+        if (req.getStartTime() != null || req.getEndTime() != null) {
+            count++;
+            type = "time";
+        }
+        if (req.getFields() != null && !req.getFields().isEmpty()) {
+            count++;
+            type = "field";
+        }
+        if (req.getExcludeTopTemplates() > 0) {
+            count++;
+            type = "template";
+        }
+        return count > 1 ? "combined" : type;
+    }
+
+    private DistributionSummary bytesSummary(String name, String description, String mode, String filterType) {
+        return meter(name + "|" + mode + "|" + filterType, () -> DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit("bytes")
+                .tag("mode", mode)
+                .tag("filter", filterType)
+                .register(meterRegistry));
+    }
+
+    /**
+     * 取已注册的指标，首次访问时注册
+     *
+     * @param key     指标名称和标签值
+     * @param factory 注册指标
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T meter(String key, Supplier<T> factory) {
+        return (T) meters.computeIfAbsent(key, k -> factory.get());
+    }
+}
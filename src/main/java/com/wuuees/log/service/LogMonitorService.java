@@ -3,6 +3,7 @@ package com.wuuees.log.service;
 import com.wuuees.log.config.LogConfigProperties;
 import com.wuuees.log.dto.LogLineInfo;
 import com.wuuees.log.util.LogParser;
+import com.wuuees.log.util.TailSampler;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
@@ -11,9 +12,11 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -21,12 +24,22 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 
 @Service
 @Slf4j
 public class LogMonitorService implements InitializingBean, DisposableBean {
 
+    // 实时日志推送主题
+    private static final String TOPIC = "/topic/log-monitor";
+
+    // 单次读取的最大字节数
+    private static final int READ_CHUNK_SIZE = 1024 * 1024;
+
+    // 推送速率的统计周期（毫秒）
+    private static final long RATE_PERIOD_MILLIS = 1000;
+
     @Autowired
     private LogConfigProperties logConfig;
 
@@ -36,6 +49,12 @@ public class LogMonitorService implements InitializingBean, DisposableBean {
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
+    @Autowired
+    private LogMetricsService logMetricsService;
+
+    @Autowired
+    private LogTemplateService logTemplateService;
+
 
     // 文件监控服务
     private WatchService watchService;
@@ -55,6 +74,12 @@ public class LogMonitorService implements InitializingBean, DisposableBean {
     // 用于防止重复调用stopMonitoring的标志
     private final AtomicBoolean stopping = new AtomicBoolean(false);
 
+    // 当前监控文件的推送抽样
+    private volatile TailSampler tailSampler;
+
+    // 已通知客户端的推送模式，true 为降级模式
+    private final AtomicBoolean tailDegraded = new AtomicBoolean(false);
+
 
     @Override
     public void afterPropertiesSet() throws Exception {
@@ -71,6 +96,9 @@ public class LogMonitorService implements InitializingBean, DisposableBean {
 
                 // 启动文件监控线程
                 executorService.submit(this::watchFiles);
+                // 按周期统计写入速率，切换推送模式
+                executorService.scheduleAtFixedRate(this::reportTailRate,
+                        RATE_PERIOD_MILLIS, RATE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
                 log.info("日志文件监控服务已启动，监控目录: {}", logPath);
             }
         } catch (Exception e) {
@@ -140,7 +168,7 @@ public class LogMonitorService implements InitializingBean, DisposableBean {
      *
      * @param fileName 文件名
      */
-    private void processFileChange(String fileName) {
+    void processFileChange(String fileName) {
         // 添加监控状态检查
         if (!monitoring) {
             return;
@@ -161,19 +189,33 @@ public class LogMonitorService implements InitializingBean, DisposableBean {
 
             // 如果有新内容
             if (currentLength > lastPosition) {
-                String newContent = readNewContent(file, lastPosition, currentLength);
-                if (newContent != null && !newContent.trim().isEmpty()) {
-                    // 解析新日志行
-                    String[] lines = newContent.split("\n");
-                    for (String line : lines) {
-                        if (!line.trim().isEmpty()) {
-                            // 发送日志
-                            sendLogLine(fileName, line);
-                        }
+                TailSampler sampler = tailSampler;
+                int[] parsed = {0};
+                long position = readNewLines(file, lastPosition, currentLength, line -> {
+                    if (line.trim().isEmpty()) {
+                        return;
                     }
+                    LogLineInfo lineInfo = logParser.parseLine(line);
+                    if (sampler == null || sampler.accept(lineInfo.getLevel())) {
+                        // 发送日志
+                        sendLogLine(fileName, line, lineInfo);
+                        recordTailLag(lineInfo);
+                    }
+                    parsed[0]++;
+                });
+                if (parsed[0] > 0) {
+                    logMetricsService.recordLinesParsed("tail", parsed[0]);
+                }
+                if (sampler != null && sampler.isDegraded()) {
+                    // 周期内已超过阈值，立即通知客户端，不等到周期结束
+                    sendTailMode(fileName, true, 0);
+                }
+                // 更新文件位置，未写完的最后一行留到下次读取
+                filePositions.put(fileName, position);
+                if (parsed[0] > 0) {
+                    // 已获取过模板的文件在后台归类新增的行
+                    logTemplateService.refresh(file);
                 }
-                // 更新文件位置
-                filePositions.put(fileName, currentLength);
             }
         } catch (Exception e) {
             log.error("处理文件变化失败: {}", fileName, e);
@@ -182,34 +224,71 @@ public class LogMonitorService implements InitializingBean, DisposableBean {
 
 
     /**
-     * 读取文件新增内容
+     * 按块读取文件新增的完整行
      *
      * @param file          文件
      * @param startPosition 开始位置
      * @param endPosition   结束位置
-     * @return 新增内容
+     * @param consumer      每一行的处理
+     * @return 已读取到的位置，即最后一个完整行的结束位置
      */
-    private String readNewContent(File file, long startPosition, long endPosition) {
+    private long readNewLines(File file, long startPosition, long endPosition, Consumer<String> consumer)
+            throws IOException {
         try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
             raf.seek(startPosition);
-
-            long length = endPosition - startPosition;
-
-            if (length > 1024 * 1024) {
-                // 限制单次读取大小为1MB
-                length = 1024 * 1024;
+            byte[] buffer = new byte[(int) Math.min(READ_CHUNK_SIZE, endPosition - startPosition)];
+            long position = startPosition;
+            // 上一块末尾未结束的半行
+            int carry = 0;
+            while (monitoring && position + carry < endPosition) {
+                int toRead = (int) Math.min(buffer.length - carry, endPosition - position - carry);
+                int bytesRead = raf.read(buffer, carry, toRead);
+                if (bytesRead <= 0) {
+                    break;
+                }
+                int length = carry + bytesRead;
+                int lineEnd = lastIndexOf(buffer, length, (byte) '\n') + 1;
+                if (lineEnd == 0) {
+                    // 缓冲区按新增字节数分配，可能小于单次读取大小，读满缓冲区不代表行超长
+                    if (length < READ_CHUNK_SIZE) {
+                        carry = length;
+                        continue;
+                    }
+                    // 超过单次读取大小的行按块切分
+                    lineEnd = length;
+                }
+                String content = new String(buffer, 0, lineEnd, StandardCharsets.UTF_8);
+                for (String line : content.split("\n")) {
+                    consumer.accept(line);
+                }
+                position += lineEnd;
+                carry = length - lineEnd;
+                System.arraycopy(buffer, lineEnd, buffer, 0, carry);
             }
+            return position;
+        }
+    }
 
-            byte[] buffer = new byte[(int) length];
-            int bytesRead = raf.read(buffer);
-
-            if (bytesRead > 0) {
-                return new String(buffer, 0, bytesRead, StandardCharsets.UTF_8);
+    private static int lastIndexOf(byte[] buffer, int length, byte value) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer[i] == value) {
+                return i;
             }
-        } catch (Exception e) {
-            log.error("读取文件新增内容失败:{}", file.getName(), e);
         }
-        return null;
+        return -1;
+    }
+
+    /**
+     * 记录一行的推送延迟
+     * <p>
+     * 以日志行的时间戳近似写入时间：时间戳只精确到毫秒，且日志框架格式化时间戳到写入文件之间的耗时不计入；
+     * 没有时间戳的行（如异常堆栈）不记录。
+     */
+    private void recordTailLag(LogLineInfo lineInfo) {
+        if (lineInfo.getTimestamp() != null) {
+            long written = lineInfo.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            logMetricsService.recordTailLag(System.currentTimeMillis() - written);
+        }
     }
 
     /**
@@ -217,12 +296,10 @@ public class LogMonitorService implements InitializingBean, DisposableBean {
      *
      * @param fileName 文件名
      * @param logLine  日志行
+     * @param lineInfo 解析结果
      */
-    private void sendLogLine(String fileName, String logLine) {
+    private void sendLogLine(String fileName, String logLine, LogLineInfo lineInfo) {
         try {
-            // 解析日志行
-            LogLineInfo lineInfo = logParser.parseLine(logLine);
-
             // 构建消息
             Map<String, Object> message = new HashMap<>();
             message.put("type", "new_log_line");
@@ -236,18 +313,70 @@ public class LogMonitorService implements InitializingBean, DisposableBean {
                     lineInfo.getContent() : logLine);
 
             // 发送到WebSocket客户端
-            messagingTemplate.convertAndSend("/topic/log-monitor", message);
+            messagingTemplate.convertAndSend(TOPIC, message);
         } catch (Exception e) {
+            logMetricsService.recordDropped(TOPIC, "send_failed", 1);
             log.error("发送日志行失败", e);
         }
     }
 
+    /**
+     * 结束一个统计周期：降级期间推送各级别的行数汇总，模式变化时通知客户端
+     */
+    private void reportTailRate() {
+        TailSampler sampler = tailSampler;
+        String fileName = currentMonitorFile;
+        if (!monitoring || sampler == null || fileName == null) {
+            return;
+        }
+        try {
+            TailSampler.Period period = sampler.endPeriod();
+            if (period.isDegradedBefore()) {
+                Map<String, Object> message = new HashMap<>();
+                message.put("type", "tail_summary");
+                message.put("fileName", fileName);
+                message.put("intervalMillis", period.getDurationMillis());
+                message.put("linesPerSecond", period.getLinesPerSecond());
+                message.put("lines", period.getLines());
+                message.put("sampled", period.getDropped());
+                message.put("levels", period.getLevels());
+                messagingTemplate.convertAndSend(TOPIC, message);
+                logMetricsService.recordDropped(TOPIC, "sampled", period.getDropped());
+            }
+            sendTailMode(fileName, period.isDegradedAfter(), period.getLinesPerSecond());
+        } catch (Exception e) {
+            log.error("统计实时推送速率失败: {}", fileName, e);
+        }
+    }
+
+    /**
+     * 推送模式变化时通知客户端
+     *
+     * @param linesPerSecond 当前写入速率，周期内触发降级时为0
+     */
+    private void sendTailMode(String fileName, boolean degraded, long linesPerSecond) {
+        if (tailDegraded.compareAndSet(!degraded, degraded)) {
+            log.info("实时推送{}: {}，写入速率 {} 行/秒", degraded ? "进入降级模式" : "恢复全量推送",
+                    fileName, linesPerSecond);
+            Map<String, Object> message = new HashMap<>();
+            message.put("type", "tail_mode");
+            message.put("fileName", fileName);
+            message.put("mode", degraded ? "degraded" : "normal");
+            message.put("linesPerSecond", linesPerSecond);
+            message.put("threshold", logConfig.getTailDegradeLinesPerSecond());
+            messagingTemplate.convertAndSend(TOPIC, message);
+        }
+    }
+
 
     /**
      * 开始监控指定文件
      * @param fileName 文件名
      */
     public void startMonitoring(String fileName) {
+        this.tailSampler = new TailSampler(logConfig.getTailDegradeLinesPerSecond(),
+                logConfig.getTailSampleLinesPerSecond());
+        this.tailDegraded.set(false);
         this.currentMonitorFile = fileName;
         this.monitoring = true;
         // 初始化文件位置，从文件末尾开始监控
@@ -271,7 +400,7 @@ public class LogMonitorService implements InitializingBean, DisposableBean {
             log.info("停止实时文件监控");
 
             // 发送监控停止消息
-            messagingTemplate.convertAndSend("/topic/log-monitor",
+            messagingTemplate.convertAndSend(TOPIC,
                     Map.of("type", "monitor_stopped"));
         }
     }
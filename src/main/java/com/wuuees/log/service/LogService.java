@@ -1,9 +1,15 @@
 package com.wuuees.log.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wuuees.log.config.LogConfigProperties;
+import com.wuuees.log.util.ContextWindow;
+import com.wuuees.log.util.JsonLineScanner;
+import com.wuuees.log.util.LineCursorReader;
+import com.wuuees.log.util.LogColumnEncoder;
 import com.wuuees.log.util.LogParser;
-import com.wuuees.log.dto.LogLineInfo;
+import com.wuuees.log.util.RegexCache;
 import com.wuuees.log.dto.LogQueryDto;
+import com.wuuees.log.dto.LogTemplateDto;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
@@ -12,9 +18,12 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
@@ -22,6 +31,9 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,6 +46,33 @@ public class LogService {
     @Autowired
     private LogParser logParser;
 
+    @Autowired
+    private LogMetricsService logMetricsService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RegexCache regexCache;
+
+    @Autowired
+    private LogColumnEncoder logColumnEncoder;
+
+    @Autowired
+    private LogTemplateService logTemplateService;
+
+    // 流式查询两次刷新输出之间的最长间隔
+    private static final long STREAM_FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    // 命中行前后最多的上下文行数
+    private static final int MAX_CONTEXT_LINES = 100;
+
+    // 不限制查询的截止时间
+    static final long NO_DEADLINE = Long.MIN_VALUE;
+
+    // 每过滤多少行检查一次截止时间，取值为2的幂减1
+    private static final int DEADLINE_CHECK_MASK = 1023;
+
     /**
      * 获取日志文件列表
      */
@@ -55,18 +94,31 @@ public class LogService {
      * 查询日志内容
      */
     public LogQueryDto.LogQueryResponse queryLogs(LogQueryDto.LogQueryRequest req) {
+        return queryLogs(req, NO_DEADLINE);
+    }
+
+    /**
+     * 查询日志内容，超过截止时间时停止扫描并抛出 CancellationException，用于集群查询
+     *
+     * @param deadlineNanos 截止时间，与 System.nanoTime() 比较
+     */
+    public LogQueryDto.LogQueryResponse queryLogs(LogQueryDto.LogQueryRequest req, long deadlineNanos) {
         File logFile = getLogFile(req.getFileName());
         validateFile(logFile);
 
+        long start = System.nanoTime();
         try {
+            checkDeadline(deadlineNanos);
             List<String> allLines = FileUtils.readLines(logFile, StandardCharsets.UTF_8);
+            checkDeadline(deadlineNanos);
 
             // 过滤日志行
-            List<String> filteredLines = filterLines(allLines, req);
+            FilteredLines filtered = selectLines(allLines, req, deadlineNanos);
+            List<String> filteredLines = filtered.lines;
 
             // 倒序处理
             if (req.isReverse()) {
-                Collections.reverse(filteredLines);
+                filtered.reverse();
             }
 
             // 分页处理
@@ -79,6 +131,10 @@ public class LogService {
 
             LogQueryDto.LogQueryResponse respDto = new LogQueryDto.LogQueryResponse();
             respDto.setLines(pageLines);
+            if (filtered.lineNumbers != null) {
+                respDto.setLineNumbers(filtered.lineNumbers.subList(startIndex, endIndex));
+                respDto.setContext(filtered.context.subList(startIndex, endIndex));
+            }
             respDto.setTotalLines(totalLines);
             respDto.setCurrentPage(req.getPage());
             respDto.setTotalPages(totalPage);
@@ -87,7 +143,13 @@ public class LogService {
                     LocalDateTime.ofInstant(
                             Instant.ofEpochMilli(logFile.lastModified()),
                             ZoneId.systemDefault()));
+
+            logMetricsService.recordQuery("page", LogMetricsService.filterType(req), System.nanoTime() - start,
+                    logFile.length(), utf8Length(pageLines));
             return respDto;
+        } catch (IllegalArgumentException | CancellationException ex) {
+            // 正则语法错误、匹配超时或超过截止时间
+            throw ex;
         } catch (Exception ex) {
             log.error("读取日志文件失败:{}", logFile.getAbsolutePath(), ex);
             throw new RuntimeException("读取日志文件失败", ex);
@@ -95,6 +157,161 @@ public class LogService {
     }
 
 
+    /**
+     * 获取日志文件中行数最多的模板
+     */
+    public LogTemplateDto.LogTemplateResponse templates(String fileName, int limit) {
+        return logTemplateService.templates(resolveLogFile(fileName), limit);
+    }
+
+    /**
+     * 查询日志内容，结果按列编码，分页规则与 queryLogs 相同
+     */
+    public LogQueryDto.LogColumnarResponse queryLogsColumnar(LogQueryDto.LogQueryRequest req) {
+        LogQueryDto.LogQueryResponse page = queryLogs(req);
+        LogQueryDto.LogColumnarResponse response = logColumnEncoder.encode(page.getLines());
+        response.setLineNumbers(page.getLineNumbers());
+        response.setContext(page.getContext());
+        response.setTotalLines(page.getTotalLines());
+        response.setCurrentPage(page.getCurrentPage());
+        response.setTotalPages(page.getTotalPages());
+        response.setFileSize(page.getFileSize());
+        response.setLastModified(page.getLastModified());
+        return response;
+    }
+
+    /**
+     * 流式查询日志，边扫描边输出匹配行，不受文件大小限制
+     *
+     * @param req 查询条件
+     * @param sse 是否以Server-Sent Events格式输出，否则为NDJSON
+     */
+    public StreamingResponseBody streamLogs(LogQueryDto.LogStreamRequest req, boolean sse) throws IOException {
+        File logFile = resolveLogFile(req.getFileName());
+
+        // 以查询开始时的文件长度为准，避免读到正在写入的内容
+        long fileLength = logFile.length();
+        long from = StringUtils.isNotBlank(req.getCursor())
+                ? decodeCursor(logFile, req.getCursor(), fileLength, req.isReverse())
+                : (req.isReverse() ? fileLength : 0);
+        int limit = Math.min(req.getLimit(), logConfigProperties.getStreamMaxLines());
+        Predicate<String> filter = lineFilter(req);
+        // 倒序读取时文件中位于命中行之后的行先被读到
+        ContextWindow<LineCursorReader.Line> window = req.isReverse()
+                ? contextWindow(req.getAfterContext(), req.getBeforeContext())
+                : contextWindow(req.getBeforeContext(), req.getAfterContext());
+
+        return out -> {
+            long start = System.nanoTime();
+            long lastFlush = 0;
+            long parsed = 0;
+            long returned = 0;
+            LogQueryDto.LogStreamEnd end = new LogQueryDto.LogStreamEnd();
+            try (LineCursorReader reader = req.isReverse()
+                    ? LineCursorReader.backward(logFile, from)
+                    : LineCursorReader.forward(logFile, from, fileLength)) {
+                // 已处理到的位置，达到行数上限后读到的下一个命中行不计入
+                long position = from;
+                LineCursorReader.Line line;
+                while ((end.getMatched() < limit || (window != null && window.hasPendingAfter()))
+                        && (line = reader.next()) != null) {
+                    parsed++;
+                    boolean matched;
+                    try {
+                        matched = filter.test(line.getText());
+                    } catch (IllegalArgumentException ex) {
+                        // 响应已开始输出，只能以错误记录结束
+                        writeEvent(out, sse, "error", encodeCursor(reader.position()),
+                                Map.of("type", "error", "message", ex.getMessage()));
+                        out.flush();
+                        return;
+                    }
+                    if (matched && end.getMatched() >= limit) {
+                        break;
+                    }
+                    position = reader.position();
+                    List<LineCursorReader.Line> output = window == null
+                            ? (matched ? List.of(line) : List.of())
+                            : window.accept(line, matched);
+                    for (LineCursorReader.Line item : output) {
+                        LogQueryDto.LogStreamLine streamLine = new LogQueryDto.LogStreamLine();
+                        streamLine.setLine(item.getText());
+                        streamLine.setContext(item != line || !matched);
+                        // 上下文行与命中行的位置交错，只有命中行的游标随输出顺序单调，可用于继续读取
+                        if (!streamLine.isContext()) {
+                            streamLine.setCursor(encodeCursor(req.isReverse() ? item.getStart() : item.getEnd()));
+                        }
+                        writeEvent(out, sse, streamLine.getType(), streamLine.getCursor(), streamLine);
+                        returned += item.getEnd() - item.getStart();
+                    }
+                    if (!matched) {
+                        continue;
+                    }
+                    end.setMatched(end.getMatched() + 1);
+
+                    // 第一条结果立即输出，之后按时间间隔批量刷新
+                    long now = System.nanoTime();
+                    if (end.getMatched() == 1 || now - lastFlush > STREAM_FLUSH_INTERVAL_NANOS) {
+                        out.flush();
+                        lastFlush = now;
+                    }
+                }
+                end.setNextCursor(encodeCursor(position));
+                end.setEof(req.isReverse() ? position <= 0 : position >= fileLength);
+                end.setScannedBytes(Math.abs(position - from));
+            }
+            writeEvent(out, sse, end.getType(), end.getNextCursor(), end);
+            out.flush();
+
+            logMetricsService.recordLinesParsed("query", parsed);
+            logMetricsService.recordQuery("stream", LogMetricsService.filterType(req), System.nanoTime() - start,
+                    end.getScannedBytes(), returned);
+        };
+    }
+
+    /**
+     * 输出一条流式查询记录
+     */
+    private void writeEvent(OutputStream out, boolean sse, String event, String id, Object data) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(data);
+        if (sse) {
+            // 没有游标的记录不带 id，断线重连时从上一个游标继续
+            out.write(((id != null ? "id:" + id + "\n" : "") + "event:" + event + "\ndata:")
+                    .getBytes(StandardCharsets.UTF_8));
+            out.write(json);
+            out.write('\n');
+            out.write('\n');
+        } else {
+            out.write(json);
+            out.write('\n');
+        }
+    }
+
+    /**
+     * 游标编码，对客户端不透明
+     */
+    private String encodeCursor(long offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标，不在行边界上的偏移量对齐到行边界，避免返回半行
+     */
+    private long decodeCursor(File logFile, String cursor, long fileLength, boolean reverse) throws IOException {
+        long offset;
+        try {
+            offset = Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("无效的游标: " + cursor);
+        }
+        if (offset < 0 || offset > fileLength) {
+            throw new IllegalArgumentException("游标超出文件范围: " + cursor);
+        }
+        return LineCursorReader.alignToLine(logFile, offset, !reverse, fileLength);
+    }
+
+
     /**
      * 下载日志文件
      */
@@ -102,6 +319,7 @@ public class LogService {
         File logFile = getLogFile(req.getFileName());
         validateFile(logFile);
 
+        long start = System.nanoTime();
         try {
             resp.setContentType("application/octet-stream");
             resp.setHeader("Content-Disposition",
@@ -110,22 +328,28 @@ public class LogService {
             if (hasFilter(req)) {
                 // 下载过滤后的内容
                 List<String> allLines = FileUtils.readLines(logFile, StandardCharsets.UTF_8);
-                List<String> filteredLines = filterLines(allLines, req);
+                List<String> filteredLines = selectLines(allLines, req, NO_DEADLINE).lines;
 
                 try (PrintWriter writer = resp.getWriter()) {
                     for (String line : filteredLines) {
                         writer.println(line);
                     }
                 }
+                logMetricsService.recordDownload(true, System.nanoTime() - start,
+                        utf8Length(filteredLines) + filteredLines.size());
             } else {
                 // 下载源文件
                 resp.setContentLengthLong(logFile.length());
+                long bytes;
                 try (FileInputStream inputStream = new FileInputStream(logFile);
                      ServletOutputStream outputStream = resp.getOutputStream()) {
-                    IOUtils.copy(inputStream, outputStream);
+                    bytes = IOUtils.copyLarge(inputStream, outputStream);
                 }
+                logMetricsService.recordDownload(false, System.nanoTime() - start, bytes);
             }
 
+        } catch (IllegalArgumentException ex) {
+            throw ex;
         } catch (Exception ex) {
             log.error("下载日志文件失败:{}", logFile.getAbsolutePath(), ex);
             throw new RuntimeException("下载日志文件失败", ex);
@@ -133,18 +357,135 @@ public class LogService {
 
     }
 
-    private List<String> filterLines(List<String> lines, LogQueryDto.LogQueryRequest req) {
+    /**
+     * 过滤日志行，请求了上下文时在同一次遍历中收集命中行前后的行
+     */
+    private FilteredLines selectLines(List<String> lines, LogQueryDto.LogQueryRequest req, long deadlineNanos) {
+        ContextWindow<Integer> window = contextWindow(req.getBeforeContext(), req.getAfterContext());
+        if (window == null || !hasFilter(req)) {
+            return new FilteredLines(filterLines(lines, req, deadlineNanos), null, null);
+        }
+
+        logMetricsService.recordLinesParsed("query", lines.size());
+        Predicate<String> filter = withDeadline(lineFilter(req), deadlineNanos);
+        List<String> selected = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+        List<Boolean> context = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            boolean matched = filter.test(lines.get(i));
+            for (int index : window.accept(i, matched)) {
+                selected.add(lines.get(index));
+                lineNumbers.add(index + 1);
+                context.add(index != i || !matched);
+            }
+        }
+        return new FilteredLines(selected, lineNumbers, context);
+    }
+
+    /**
+     * 创建上下文窗口，未请求上下文时返回null
+     */
+    private <T> ContextWindow<T> contextWindow(int before, int after) {
+        if (before < 0 || after < 0 || before > MAX_CONTEXT_LINES || after > MAX_CONTEXT_LINES) {
+            throw new IllegalArgumentException("上下文行数必须在0到" + MAX_CONTEXT_LINES + "之间");
+        }
+        return before == 0 && after == 0 ? null : new ContextWindow<>(before, after);
+    }
+
+    /**
+     * 按查询条件过滤日志行，包内可见供基准测试直接调用
+     */
+    List<String> filterLines(List<String> lines, LogQueryDto.LogQueryRequest req) {
+        return filterLines(lines, req, NO_DEADLINE);
+    }
+
+    private List<String> filterLines(List<String> lines, LogQueryDto.LogQueryRequest req, long deadlineNanos) {
         if (!hasFilter(req)) {
             return lines;
         }
 
+        logMetricsService.recordLinesParsed("query", lines.size());
         return lines.stream()
-                .map(logParser::parseLine)
-                .filter(lineInfo -> lineInfo.matchesFilter(req))
-                .map(LogLineInfo::getOriginalLine)
+                .filter(withDeadline(lineFilter(req), deadlineNanos))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 每过滤一定行数检查一次截止时间
+     */
+    private static Predicate<String> withDeadline(Predicate<String> filter, long deadlineNanos) {
+        if (deadlineNanos == NO_DEADLINE) {
+            return filter;
+        }
+        int[] count = {0};
+        return line -> {
+            if ((++count[0] & DEADLINE_CHECK_MASK) == 0) {
+                checkDeadline(deadlineNanos);
+            }
+            return filter.test(line);
+        };
+    }
+
+    private static void checkDeadline(long deadlineNanos) {
+        if (deadlineNanos != NO_DEADLINE && System.nanoTime() - deadlineNanos > 0) {
+            throw new CancellationException("查询超过截止时间");
+        }
+    }
+
+    /**
+     * 构建日志行过滤条件
+     */
+    private Predicate<String> lineFilter(LogQueryDto.LogQueryRequest req) {
+        if (!hasFilter(req)) {
+            return line -> true;
+        }
+        // 关键字和正则直接匹配原始行，JSON 字段在扫描时比较，不匹配的行无需解析
+        Predicate<String> textFilter = textFilter(req);
+        if (req.getFields() != null && !req.getFields().isEmpty()) {
+            Map<String, String> fields = req.getFields();
+            textFilter = textFilter.and(line -> JsonLineScanner.matches(line, fields));
+        }
+        if (req.getExcludeTopTemplates() > 0) {
+            textFilter = textFilter.and(logTemplateService.excludeTopTemplates(
+                    resolveLogFile(req.getFileName()), req.getExcludeTopTemplates()));
+        }
+        if (StringUtils.isBlank(req.getLevel()) && req.getStartTime() == null && req.getEndTime() == null) {
+            return textFilter;
+        }
+        return textFilter.and(line -> logParser.parseTimeAndLevel(line).matchesFilter(req));
+    }
+
+    /**
+     * 构建关键字或正则过滤条件
+     */
+    private Predicate<String> textFilter(LogQueryDto.LogQueryRequest req) {
+        String keyword = req.getKeyword();
+        if (StringUtils.isBlank(keyword)) {
+            return line -> true;
+        }
+        if (!req.isRegex()) {
+            return line -> StringUtils.containsIgnoreCase(line, keyword);
+        }
+        RegexCache.CompiledRegex regex = regexCache.get(keyword);
+        // 超时按行计算，只用于中断灾难性回溯，不限制整个扫描和输出的耗时
+        long timeout = TimeUnit.MILLISECONDS.toNanos(logConfigProperties.getRegexTimeoutMillis());
+        return line -> regex.find(line, timeout);
+    }
+
+
+    /**
+     * 日志行的UTF-8字节数
+     */
+    private long utf8Length(List<String> lines) {
+        long length = 0;
+        for (String line : lines) {
+            if (line != null) {
+                length += line.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return length;
+    }
+
 
     /**
      * 校验查询条件
@@ -153,13 +494,27 @@ public class LogService {
         return StringUtils.isNoneBlank(req.getKeyword()) ||
                 StringUtils.isNoneBlank(req.getLevel()) ||
                 req.getStartTime() != null ||
-                req.getEndTime() != null;
+                req.getEndTime() != null ||
+                (req.getFields() != null && !req.getFields().isEmpty()) ||
+                req.getExcludeTopTemplates() > 0;
     }
 
     /**
      * 校验文件合法性
      */
     private void validateFile(File file) {
+        validateFileType(file);
+
+        long fileSizeMB = file.length() / (1024 * 1024);
+        if (fileSizeMB > logConfigProperties.getMaxFileSize()) {
+            throw new RuntimeException(String.format("文件过大，超过限制 %dMB", logConfigProperties.getMaxFileSize()));
+        }
+    }
+
+    /**
+     * 校验文件是否存在及类型
+     */
+    private void validateFileType(File file) {
         if (!file.exists()) {
             throw new RuntimeException("文件不存在");
         }
@@ -169,13 +524,48 @@ public class LogService {
         if (!isValidLogFile(file)) {
             throw new RuntimeException("不支持的文件类型");
         }
+    }
 
-        long fileSizeMB = file.length() / (1024 * 1024);
-        if (fileSizeMB > logConfigProperties.getMaxFileSize()) {
-            throw new RuntimeException(String.format("文件过大，超过限制 %dMB", logConfigProperties.getMaxFileSize()));
+
+    /**
+     * 获取并校验日志文件，不限制文件大小，供按块流式读取的场景使用
+     *
+     * @throws IllegalArgumentException 文件名非法、文件不存在或类型不支持
+     */
+    File resolveLogFile(String fileName) {
+        try {
+            File logFile = getLogFile(fileName);
+            validateFileType(logFile);
+            return logFile;
+        } catch (IllegalArgumentException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            // 文件不合法属于请求参数错误，由控制器返回400
+            throw new IllegalArgumentException(ex.getMessage(), ex);
         }
     }
 
+    /**
+     * 获取并校验要写入的日志文件，文件可以不存在，供负载生成使用
+     *
+     * @throws IllegalArgumentException 文件名非法、类型不支持或不是文件
+     */
+    File resolveWritableLogFile(String fileName) {
+        try {
+            File logFile = getLogFile(fileName);
+            if (!isValidLogFile(logFile)) {
+                throw new IllegalArgumentException("不支持的文件类型");
+            }
+            if (logFile.exists() && !logFile.isFile()) {
+                throw new IllegalArgumentException("不是有效的文件");
+            }
+            return logFile;
+        } catch (IllegalArgumentException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException(ex.getMessage(), ex);
+        }
+    }
 
     /**
      * 获取日志文件
@@ -209,4 +599,31 @@ public class LogService {
         map.put("readable", file.canRead());
         return map;
     }
+
+
+    /**
+     * 过滤结果，未请求上下文时行号和上下文标记为null
+     */
+    private static class FilteredLines {
+
+        private final List<String> lines;
+
+        private final List<Integer> lineNumbers;
+
+        private final List<Boolean> context;
+
+        FilteredLines(List<String> lines, List<Integer> lineNumbers, List<Boolean> context) {
+            this.lines = lines;
+            this.lineNumbers = lineNumbers;
+            this.context = context;
+        }
+
+        void reverse() {
+            Collections.reverse(lines);
+            if (lineNumbers != null) {
+                Collections.reverse(lineNumbers);
+                Collections.reverse(context);
+            }
+        }
+    }
 }
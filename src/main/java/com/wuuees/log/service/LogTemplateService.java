@@ -0,0 +1,313 @@
+package com.wuuees.log.service;
+
+import com.wuuees.log.config.LogConfigProperties;
+import com.wuuees.log.dto.LogLineInfo;
+import com.wuuees.log.dto.LogTemplateDto;
+import com.wuuees.log.util.JsonLineScanner;
+import com.wuuees.log.util.LineCursorReader;
+import com.wuuees.log.util.LogParser;
+import com.wuuees.log.util.TemplateMiner;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * 日志模板统计，将相同模式的日志行归为一类
+ * <p>
+ * 每个文件保留一份归类结果和已处理到的位置，文件增长时只归类新增的行，
+ * 文件被截断或轮转时重新归类。归类在后台线程中分批进行，不占用请求线程，
+ * 每批归类完成后才加锁合并，请求线程随时可以取到已归类部分的结果。
+ */
+@Service
+@Slf4j
+public class LogTemplateService implements DisposableBean {
+
+    // 保留归类结果的文件数
+    private static final int MAX_CACHED_FILES = 16;
+
+    // 每批归类的行数，每批合并一次结果
+    private static final int BATCH_LINES = 4096;
+
+    @Autowired
+    private LogConfigProperties logConfigProperties;
+
+    @Autowired
+    private LogParser logParser;
+
+    @Autowired
+    private LogMetricsService logMetricsService;
+
+    // 后台归类的线程，同一时间只归类一个文件
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+    private final Map<String, FileTemplates> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, FileTemplates> eldest) {
+                    return size() > MAX_CACHED_FILES;
+                }
+            });
+
+
+    @Override
+    public void destroy() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * 获取文件的日志模板
+     * <p>
+     * 在后台归类新增的行，最多等待 templateWaitMillis，超时时返回已归类部分的结果并标记为归类中。
+     *
+     * @param file  日志文件
+     * @param limit 最多返回的模板数
+     */
+    public LogTemplateDto.LogTemplateResponse templates(File file, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("返回的模板数必须大于0");
+        }
+        FileTemplates state = state(file);
+        Long scanned = awaitUpdate(file, state);
+        synchronized (state) {
+            List<TemplateMiner.Template> templates = state.miner != null ? state.miner.templates() : List.of();
+
+            LogTemplateDto.LogTemplateResponse response = new LogTemplateDto.LogTemplateResponse();
+            response.setTotalLines(state.lines);
+            response.setTemplateCount(templates.size());
+            response.setEvictedTemplates(state.miner != null ? state.miner.getEvicted() : 0);
+            response.setScannedBytes(scanned != null ? scanned : 0);
+            response.setScanning(scanned == null);
+            response.setTemplates(templates.stream().limit(limit).map(template -> {
+                LogTemplateDto.Template dto = new LogTemplateDto.Template();
+                dto.setId(template.getId());
+                dto.setTemplate(template.getText());
+                dto.setCount(template.getCount());
+                dto.setFirstOffset(template.getFirstOffset());
+                dto.setLastOffset(template.getLastOffset());
+                return dto;
+            }).collect(Collectors.toList()));
+            return response;
+        }
+    }
+
+    /**
+     * 创建排除前N个模板的过滤条件
+     * <p>
+     * 在后台归类新增的行，最多等待 templateWaitMillis，超时时抛出 IllegalArgumentException，稍后重试即可。
+     * 取当前的前N个模板的副本进行匹配，查询过程中模板继续更新不影响本次查询。
+     */
+    public Predicate<String> excludeTopTemplates(File file, int top) {
+        FileTemplates state = state(file);
+        if (awaitUpdate(file, state) == null) {
+            throw new IllegalArgumentException("日志模板正在归类，请稍后重试: " + file.getName());
+        }
+
+        Map<Integer, List<String[]>> excluded;
+        synchronized (state) {
+            excluded = state.miner.templates().stream()
+                    .limit(top)
+                    .map(TemplateMiner.Template::getTokens)
+                    .collect(Collectors.groupingBy(tokens -> tokens.length));
+        }
+        return line -> {
+            String[] tokens = tokens(line);
+            List<String[]> candidates = excluded.get(tokens.length);
+            if (candidates == null) {
+                return true;
+            }
+            for (String[] template : candidates) {
+                if (TemplateMiner.matches(template, tokens)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    /**
+     * 文件有新增内容时在后台归类新增的行，由实时监控调用，从未获取过模板的文件不处理
+     */
+    public void refresh(File file) {
+        FileTemplates state = cache.get(file.getAbsolutePath());
+        if (state != null) {
+            submitUpdate(file, state);
+        }
+    }
+
+    private FileTemplates state(File file) {
+        return cache.computeIfAbsent(file.getAbsolutePath(), key -> new FileTemplates());
+    }
+
+    /**
+     * 提交后台归类并最多等待 templateWaitMillis
+     *
+     * @return 等待的归类任务扫描的字节数，超时返回null
+     */
+    private Long awaitUpdate(File file, FileTemplates state) {
+        try {
+            return submitUpdate(file, state).get(logConfigProperties.getTemplateWaitMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            return null;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待日志模板归类被中断: " + file.getName(), ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("日志模板归类失败: " + file.getName(), ex.getCause());
+        }
+    }
+
+    /**
+     * 提交后台归类，该文件已有未完成的任务时直接返回该任务
+     */
+    private synchronized Future<Long> submitUpdate(File file, FileTemplates state) {
+        if (state.pending == null || state.pending.isDone()) {
+            state.pending = executorService.submit(() -> update(file, state));
+        }
+        return state.pending;
+    }
+
+    /**
+     * 归类上次处理位置之后新增的完整行，返回扫描的字节数
+     * <p>
+     * 只在后台线程中执行，读取和切分不加锁，每批行归类时才加锁
+     */
+    private long update(File file, FileTemplates state) {
+        long length = file.length();
+        try {
+            long end = completeLinesEnd(file, length);
+            // 只比较完整的第一行，第一行正在写入时不视为轮转
+            String firstLine = firstLine(file, end);
+            if (state.miner == null || length < state.offset || !Objects.equals(firstLine, state.firstLine)) {
+                // 文件被截断或轮转，重新归类
+                synchronized (state) {
+                    state.reset(logConfigProperties.getMaxTemplates());
+                }
+                state.firstLine = firstLine;
+            }
+
+            if (end <= state.offset) {
+                return 0;
+            }
+            long from = state.offset;
+            String[][] tokens = new String[BATCH_LINES][];
+            long[] starts = new long[BATCH_LINES];
+            int size = 0;
+            try (LineCursorReader reader = LineCursorReader.forward(file, from, end)) {
+                LineCursorReader.Line line;
+                while ((line = reader.next()) != null) {
+                    tokens[size] = tokens(line.getText());
+                    starts[size++] = line.getStart();
+                    if (size == BATCH_LINES) {
+                        addBatch(state, tokens, starts, size, line.getEnd());
+                        size = 0;
+                    }
+                }
+            }
+            addBatch(state, tokens, starts, size, end);
+            return end - from;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("读取日志文件失败: " + file.getName(), ex);
+        }
+    }
+
+    /**
+     * 归类一批行，并把处理位置推进到这批行之后
+     */
+    private void addBatch(FileTemplates state, String[][] tokens, long[] starts, int size, long offset) {
+        synchronized (state) {
+            for (int i = 0; i < size; i++) {
+                state.miner.add(tokens[i], starts[i]);
+            }
+            state.offset = offset;
+            state.lines += size;
+        }
+        logMetricsService.recordLinesParsed("template", size);
+    }
+
+    /**
+     * 参与归类的单词：级别和日志内容
+     * <p>
+     * 以时间戳开头的行直接切分整行，去掉时间戳切出的两个单词，不必先解析；
+     * JSON 日志取级别和消息字段，其余行使用整行
+     */
+    private String[] tokens(String line) {
+        if (JsonLineScanner.isJsonLine(line)) {
+            LogLineInfo info = logParser.parseLine(line);
+            if (info.getContent() != null) {
+                return TemplateMiner.tokenize(info.getLevel() != null
+                        ? info.getLevel() + " " + info.getContent() : info.getContent());
+            }
+        }
+        String[] tokens = TemplateMiner.tokenize(line);
+        if (logParser.startsWithTimestamp(line)) {
+            return Arrays.copyOfRange(tokens, 2, tokens.length);
+        }
+        return tokens;
+    }
+
+    private String firstLine(File file, long end) throws IOException {
+        try (LineCursorReader reader = LineCursorReader.forward(file, 0, end)) {
+            LineCursorReader.Line line = reader.next();
+            return line != null ? line.getText() : null;
+        }
+    }
+
+    /**
+     * 最后一个完整行的结束位置，正在写入的半行留到下次处理
+     */
+    private long completeLinesEnd(File file, long length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(length - 1);
+            if (raf.read() == '\n') {
+                return length;
+            }
+        }
+        try (LineCursorReader reader = LineCursorReader.backward(file, length)) {
+            return reader.next().getStart();
+        }
+    }
+
+
+    /**
+     * 单个文件的归类结果
+     */
+    private static class FileTemplates {
+
+        private TemplateMiner miner;
+
+        // 已归类到的位置
+        private long offset;
+
+        private long lines;
+
+        // 用于识别文件轮转
+        private String firstLine;
+
+        // 后台归类任务
+        private Future<Long> pending;
+
+        void reset(int maxTemplates) {
+            miner = new TemplateMiner(maxTemplates);
+            offset = 0;
+            lines = 0;
+        }
+    }
+}
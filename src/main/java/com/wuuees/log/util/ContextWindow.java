@@ -0,0 +1,75 @@
+package com.wuuees.log.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 命中行的上下文窗口，与 grep -B/-A 相同
+ * <p>
+ * 按读取顺序逐行处理：未命中的行放入固定大小的环形缓冲区，遇到命中行时连同缓冲区一起输出，
+ * 之后的若干行作为后置上下文直接输出。已输出的行不会再进入缓冲区，相邻窗口重叠时自动合并。
+ *
+ * @param <T> 行的类型
+ */
+public class ContextWindow<T> {
+
+    private final int before;
+
+    private final int after;
+
+    private final ArrayDeque<T> lookbehind;
+
+    // 还需要输出的后置上下文行数
+    private int afterRemaining;
+
+    /**
+     * @param before 命中行之前（按读取顺序）的上下文行数
+     * @param after  命中行之后（按读取顺序）的上下文行数
+     */
+    public ContextWindow(int before, int after) {
+        this.before = before;
+        this.after = after;
+        this.lookbehind = new ArrayDeque<>(Math.max(before, 1));
+    }
+
+
+    /**
+     * 处理一行，返回按读取顺序需要输出的行
+     * <p>
+     * 命中时返回缓冲的前置上下文和该行本身（最后一个元素）；未命中时返回空列表，
+     * 或在后置上下文范围内时只返回该行。
+     */
+    public List<T> accept(T item, boolean matched) {
+        if (matched) {
+            afterRemaining = after;
+            if (lookbehind.isEmpty()) {
+                return Collections.singletonList(item);
+            }
+            List<T> lines = new ArrayList<>(lookbehind.size() + 1);
+            lines.addAll(lookbehind);
+            lines.add(item);
+            lookbehind.clear();
+            return lines;
+        }
+        if (afterRemaining > 0) {
+            afterRemaining--;
+            return Collections.singletonList(item);
+        }
+        if (before > 0) {
+            if (lookbehind.size() == before) {
+                lookbehind.pollFirst();
+            }
+            lookbehind.addLast(item);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * 是否还有未输出的后置上下文
+     */
+    public boolean hasPendingAfter() {
+        return afterRemaining > 0;
+    }
+}
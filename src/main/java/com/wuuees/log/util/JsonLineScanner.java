@@ -0,0 +1,355 @@
+package com.wuuees.log.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * JSON 格式日志行的字段扫描器
+ * <p>
+ * 逐字符扫描顶层字段，只解码需要的字段值，其余字段（包括嵌套对象和数组）直接跳过，
+ * 不为每行构建完整的对象树。字段值统一以字符串返回：字符串会去掉转义，
+ * 数字和布尔值保留原文，null 返回 null，对象和数组返回原始 JSON 文本。
+ */
+public final class JsonLineScanner {
+
+    private JsonLineScanner() {
+    }
+
+
+    /**
+     * 行首（忽略空白）是否为 {
+     */
+    public static boolean isJsonLine(String line) {
+        int i = skipWhitespace(line, 0);
+        return i < line.length() && line.charAt(i) == '{';
+    }
+
+    /**
+     * 按组提取顶层字段，每组取行中最先出现的非null字段，每组都找到后立即停止扫描，
+     * 其余字段的值不解码
+     *
+     * @param line   日志行
+     * @param groups 字段分组
+     * @return 每组的值，没有找到的组为null；不是合法的 JSON 对象时返回null
+     */
+    public static String[] extract(String line, FieldGroups groups) {
+        String[] values = new String[groups.size()];
+        int[] found = {0};
+        boolean valid = scan(line, groups.names, (name, value) -> {
+            int group = groups.groupOf.get(name);
+            if (value != null && values[group] == null) {
+                values[group] = value;
+                found[0]++;
+            }
+            return found[0] < values.length;
+        });
+        return valid ? values : null;
+    }
+
+    /**
+     * 判断顶层字段是否全部等于期望值，遇到第一个不相等的字段即返回
+     *
+     * @param line     日志行
+     * @param expected 字段名和期望值
+     */
+    public static boolean matches(String line, Map<String, String> expected) {
+        // 期望值不含需要转义的字符时必然原样出现在行中，先用 indexOf 排除
+        for (String value : expected.values()) {
+            if (value != null && isPlain(value) && !line.contains(value)) {
+                return false;
+            }
+        }
+        // 重复的字段只比较第一次出现的值
+        Set<String> matched = new HashSet<>();
+        boolean[] mismatch = {false};
+        boolean valid = scan(line, expected.keySet(), (name, value) -> {
+            if (matched.contains(name)) {
+                return true;
+            }
+            if (!Objects.equals(expected.get(name), value)) {
+                mismatch[0] = true;
+                return false;
+            }
+            matched.add(name);
+            return matched.size() < expected.size();
+        });
+        return valid && !mismatch[0] && matched.size() == expected.size();
+    }
+
+
+    /**
+     * 字段分组，如时间字段的多个别名，创建后可重复使用
+     */
+    public static final class FieldGroups {
+
+        private final List<String> names = new ArrayList<>();
+
+        private final Map<String, Integer> groupOf = new HashMap<>();
+
+        private final int size;
+
+        public FieldGroups(List<List<String>> groups) {
+            for (int i = 0; i < groups.size(); i++) {
+                for (String name : groups.get(i)) {
+                    names.add(name);
+                    groupOf.put(name, i);
+                }
+            }
+            this.size = groups.size();
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * 字段回调，返回false停止扫描
+     */
+    private interface FieldVisitor {
+        boolean visit(String name, String value);
+    }
+
+    /**
+     * 扫描顶层字段，对 names 中的字段回调解码后的值
+     *
+     * @return 是否为合法的 JSON 对象（提前停止时只校验已扫描的部分）
+     */
+    private static boolean scan(String line, Collection<String> names, FieldVisitor visitor) {
+        int length = line.length();
+        int i = skipWhitespace(line, 0);
+        if (i >= length || line.charAt(i) != '{') {
+            return false;
+        }
+        i = skipWhitespace(line, i + 1);
+        if (i < length && line.charAt(i) == '}') {
+            return true;
+        }
+        while (i < length) {
+            if (line.charAt(i) != '"') {
+                return false;
+            }
+            int keyEnd = skipString(line, i);
+            if (keyEnd < 0) {
+                return false;
+            }
+            String name = matchName(line, i + 1, keyEnd - 1, names);
+
+            i = skipWhitespace(line, keyEnd);
+            if (i >= length || line.charAt(i) != ':') {
+                return false;
+            }
+            int valueStart = skipWhitespace(line, i + 1);
+            int valueEnd = skipValue(line, valueStart);
+            if (valueEnd < 0) {
+                return false;
+            }
+            if (name != null && !visitor.visit(name, decodeValue(line, valueStart, valueEnd))) {
+                return true;
+            }
+
+            i = skipWhitespace(line, valueEnd);
+            if (i >= length) {
+                return false;
+            }
+            char c = line.charAt(i);
+            if (c == '}') {
+                return true;
+            }
+            if (c != ',') {
+                return false;
+            }
+            i = skipWhitespace(line, i + 1);
+        }
+        return false;
+    }
+
+    /**
+     * 在 names 中查找与 [start, end) 处字段名相同的名称，不需要时返回null
+     */
+    private static String matchName(String line, int start, int end, Collection<String> names) {
+        if (indexOfBackslash(line, start, end) < 0) {
+            int length = end - start;
+            for (String name : names) {
+                if (name.length() == length && line.regionMatches(start, name, 0, length)) {
+                    return name;
+                }
+            }
+            return null;
+        }
+        String decoded = unescape(line, start, end);
+        return names.contains(decoded) ? decoded : null;
+    }
+
+    private static String decodeValue(String line, int start, int end) {
+        char c = line.charAt(start);
+        if (c == '"') {
+            return unescape(line, start + 1, end - 1);
+        }
+        if (c == 'n' && line.startsWith("null", start)) {
+            return null;
+        }
+        return line.substring(start, end);
+    }
+
+    /**
+     * 跳过值，返回值之后的位置，格式错误时返回-1
+     */
+    private static int skipValue(String line, int i) {
+        int length = line.length();
+        if (i >= length) {
+            return -1;
+        }
+        char c = line.charAt(i);
+        if (c == '"') {
+            return skipString(line, i);
+        }
+        if (c == '{' || c == '[') {
+            int depth = 0;
+            while (i < length) {
+                c = line.charAt(i);
+                if (c == '"') {
+                    i = skipString(line, i);
+                    if (i < 0) {
+                        return -1;
+                    }
+                    continue;
+                }
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                    if (depth == 0) {
+                        return i + 1;
+                    }
+                }
+                i++;
+            }
+            return -1;
+        }
+        // 数字、true、false、null
+        int start = i;
+        while (i < length) {
+            c = line.charAt(i);
+            if (c == ',' || c == '}' || c == ']' || isWhitespace(c)) {
+                break;
+            }
+            i++;
+        }
+        return i > start ? i : -1;
+    }
+
+    /**
+     * 跳过以 i 处引号开始的字符串，返回结束引号之后的位置，未闭合时返回-1
+     */
+    private static int skipString(String line, int i) {
+        int length = line.length();
+        i++;
+        while (i < length) {
+            char c = line.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '"') {
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private static String unescape(String line, int start, int end) {
+        int backslash = indexOfBackslash(line, start, end);
+        if (backslash < 0) {
+            return line.substring(start, end);
+        }
+        StringBuilder sb = new StringBuilder(end - start);
+        sb.append(line, start, backslash);
+        int i = backslash;
+        while (i < end) {
+            char c = line.charAt(i);
+            if (c != '\\' || i + 1 >= end) {
+                sb.append(c);
+                i++;
+                continue;
+            }
+            char next = line.charAt(i + 1);
+            switch (next) {
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'u':
+                    if (i + 6 <= end) {
+                        try {
+                            sb.append((char) Integer.parseInt(line.substring(i + 2, i + 6), 16));
+                            i += 6;
+                            continue;
+                        } catch (NumberFormatException ignored) {
+                            // 非法的 unicode 转义按原文保留
+                        }
+                    }
+                    sb.append("\\u");
+                    break;
+                default:
+                    sb.append(next);
+            }
+            i += 2;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 只在 [start, end) 内查找反斜杠，避免扫描到行尾
+     */
+    private static int indexOfBackslash(String line, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (line.charAt(i) == '\\') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 值在 JSON 中是否必然原样出现（部分编码器会转义 / 和非ASCII字符）
+     */
+    private static boolean isPlain(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20 || c == '/' || c > 0x7E) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhitespace(String line, int i) {
+        while (i < line.length() && isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+}
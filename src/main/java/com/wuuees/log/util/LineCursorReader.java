@@ -0,0 +1,267 @@
+package com.wuuees.log.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 按字节偏移量顺序或倒序逐行读取日志文件
+ * <p>
+ * 每一行都带有在文件中的起止偏移量，可以从任意行边界继续读取，翻页代价与位置无关。
+ */
+public class LineCursorReader implements Closeable {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final RandomAccessFile raf;
+
+    private final boolean forward;
+
+    /**
+     * 顺序读取的结束位置
+     */
+    private final long limit;
+
+    /**
+     * 下一行的边界：顺序读取时为下一行的起始位置，倒序读取时为上一行的结束位置
+     */
+    private long position;
+
+    // 已读入的文件窗口，对应文件中的 [windowStart, windowStart + windowLength)，
+    // 位于缓冲区的 [windowOffset, windowOffset + windowLength)。顺序读取时靠左存放，倒序读取时靠右存放，
+    // 超长行跨越多块时只在缓冲区不足时按倍数扩容，不必每读一块都复制整行
+    private byte[] window = new byte[0];
+    private int windowOffset;
+    private long windowStart;
+    private int windowLength;
+
+    private LineCursorReader(File file, boolean forward, long position, long limit) throws IOException {
+        this.raf = new RandomAccessFile(file, "r");
+        this.forward = forward;
+        this.position = position;
+        this.limit = limit;
+        this.windowStart = position;
+    }
+
+    /**
+     * 从指定位置向文件末尾读取
+     *
+     * @param file  文件
+     * @param from  开始位置，必须是行边界
+     * @param limit 结束位置（通常为查询开始时的文件长度）
+     */
+    public static LineCursorReader forward(File file, long from, long limit) throws IOException {
+        return new LineCursorReader(file, true, from, limit);
+    }
+
+    /**
+     * 从指定位置向文件开头读取
+     *
+     * @param file 文件
+     * @param from 开始位置，必须是行边界
+     */
+    public static LineCursorReader backward(File file, long from) throws IOException {
+        return new LineCursorReader(file, false, from, from);
+    }
+
+    /**
+     * 将偏移量对齐到行边界：顺序读取时移到下一行的起始位置，倒序读取时移到所在行的起始位置，
+     * 即偏移量所在的半行不会被读取
+     *
+     * @param file    文件
+     * @param offset  偏移量
+     * @param forward 是否顺序读取
+     * @param limit   文件长度，顺序读取时对齐后不超过该位置，倒序读取时该位置视为行边界
+     */
+    public static long alignToLine(File file, long offset, boolean forward, long limit) throws IOException {
+        if (offset <= 0 || offset >= limit) {
+            return offset;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            byte[] buffer = new byte[CHUNK_SIZE];
+            if (forward) {
+                // 从 offset - 1 开始查找换行符，offset 恰好是行首时不移动
+                for (long chunkStart = offset - 1; chunkStart < limit; chunkStart += buffer.length) {
+                    int read = (int) Math.min(buffer.length, limit - chunkStart);
+                    raf.seek(chunkStart);
+                    raf.readFully(buffer, 0, read);
+                    for (int i = 0; i < read; i++) {
+                        if (buffer[i] == '\n') {
+                            return chunkStart + i + 1;
+                        }
+                    }
+                }
+                return limit;
+            }
+            for (long chunkEnd = offset; chunkEnd > 0; chunkEnd -= buffer.length) {
+                long chunkStart = Math.max(chunkEnd - buffer.length, 0);
+                int read = (int) (chunkEnd - chunkStart);
+                raf.seek(chunkStart);
+                raf.readFully(buffer, 0, read);
+                for (int i = read - 1; i >= 0; i--) {
+                    if (buffer[i] == '\n') {
+                        return chunkStart + i + 1;
+                    }
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * 读取下一行，没有更多内容时返回null
+     */
+    public Line next() throws IOException {
+        return forward ? nextForward() : nextBackward();
+    }
+
+    /**
+     * 当前位置，可作为继续读取的游标
+     */
+    public long position() {
+        return position;
+    }
+
+    private Line nextForward() throws IOException {
+        if (position >= limit) {
+            return null;
+        }
+        long i = position;
+        while (i < limit) {
+            if (!load(i)) {
+                break;
+            }
+            if (byteAt(i) == '\n') {
+                Line line = line(position, i, i + 1);
+                position = i + 1;
+                return line;
+            }
+            i++;
+        }
+        // 最后一行没有换行符
+        Line line = line(position, i, i);
+        position = limit;
+        return line;
+    }
+
+    private Line nextBackward() throws IOException {
+        if (position <= 0) {
+            return null;
+        }
+        long end = position;
+        long contentEnd = end;
+        if (load(end - 1) && byteAt(end - 1) == '\n') {
+            contentEnd = end - 1;
+        }
+        long i = contentEnd - 1;
+        while (i >= 0 && load(i) && byteAt(i) != '\n') {
+            i--;
+        }
+        Line line = line(i + 1, contentEnd, end);
+        position = i + 1;
+        return line;
+    }
+
+    /**
+     * 确保offset处的字节已读入窗口
+     *
+     * @return offset超出文件范围时返回false
+     */
+    private boolean load(long offset) throws IOException {
+        if (offset >= windowStart && offset < windowStart + windowLength) {
+            return true;
+        }
+        if (forward) {
+            // 保留当前行已读入的部分，追加下一块
+            int keep = (int) Math.max(windowStart + windowLength - position, 0);
+            int read = (int) Math.min(CHUNK_SIZE, limit - offset);
+            if (read <= 0) {
+                return false;
+            }
+            // 当前行移到缓冲区开头，已在开头时（超长行）不移动
+            int keepFrom = windowOffset + windowLength - keep;
+            if (keepFrom > 0) {
+                System.arraycopy(window, keepFrom, window, 0, keep);
+            }
+            if (window.length < keep + read) {
+                window = Arrays.copyOf(window, Math.max(window.length * 2, keep + read));
+            }
+            raf.seek(offset);
+            raf.readFully(window, keep, read);
+            windowOffset = 0;
+            windowStart = offset - keep;
+            windowLength = keep + read;
+        } else {
+            if (offset < 0) {
+                return false;
+            }
+            // 保留当前行已读入的部分，在前面插入上一块
+            int keep = (int) Math.max(Math.min(windowStart + windowLength, position) - windowStart, 0);
+            long chunkStart = Math.max(Math.min(offset, windowStart) - CHUNK_SIZE + 1, 0);
+            int read = (int) (windowStart - chunkStart);
+            if (keep == 0) {
+                chunkStart = Math.max(offset - CHUNK_SIZE + 1, 0);
+                read = (int) (Math.min(position, offset + 1) - chunkStart);
+            }
+            // 当前行移到缓冲区末尾，已在末尾时（超长行）不移动
+            if (window.length < keep + read) {
+                byte[] newWindow = new byte[Math.max(window.length * 2, keep + read)];
+                System.arraycopy(window, windowOffset, newWindow, newWindow.length - keep, keep);
+                window = newWindow;
+            } else if (windowOffset + keep != window.length) {
+                System.arraycopy(window, windowOffset, window, window.length - keep, keep);
+            }
+            windowOffset = window.length - keep - read;
+            raf.seek(chunkStart);
+            raf.readFully(window, windowOffset, read);
+            windowStart = chunkStart;
+            windowLength = read + keep;
+        }
+        return true;
+    }
+
+    private byte byteAt(long offset) {
+        return window[windowOffset + (int) (offset - windowStart)];
+    }
+
+    private Line line(long start, long contentEnd, long end) {
+        int from = windowOffset + (int) (start - windowStart);
+        int length = (int) (contentEnd - start);
+        if (length > 0 && window[from + length - 1] == '\r') {
+            length--;
+        }
+        return new Line(new String(window, from, length, StandardCharsets.UTF_8), start, end);
+    }
+
+    @Override
+    public void close() throws IOException {
+        raf.close();
+    }
+
+
+    @Data
+    @AllArgsConstructor
+    public static class Line {
+
+        /**
+         * 行内容，不含换行符
+         */
+        private String text;
+
+        /**
+         * 行起始偏移量
+         */
+        private long start;
+
+        /**
+         * 行结束偏移量（含换行符）
+         */
+        private long end;
+    }
+}
@@ -0,0 +1,229 @@
+package com.wuuees.log.util;
+
+import com.wuuees.log.dto.LogQueryDto;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 将日志行按列编码
+ * <p>
+ * 标准格式 {@code 时间 级别 [线程] 日志器 - 消息} 的行拆成列：级别、线程和日志器字典编码，
+ * 时间按毫秒差值编码，只有消息保留为字符串。按位置一次扫描拆分，只接受能按前端的还原规则
+ * 原样拼回的行（时间戳合法、级别按 %-5level 补齐），其余行整行保留，保证还原结果与原文完全相同。
+ */
+@Component
+public class LogColumnEncoder {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    // 与 logback 的 %-5level 一致，级别右侧补齐到5个字符
+    private static final int LEVEL_WIDTH = 5;
+
+    /**
+     * 列式响应的媒体类型，server.compression 只对该类型启用 gzip
+     * <p>
+     * 只有 logback 布局 {@code %d{yyyy-MM-dd HH:mm:ss.SSS} %-5level [%thread] %logger - %msg} 的行会拆成列，
+     * 其他布局的行整行放在消息列中，不会变小，只靠 gzip 压缩
+     */
+    public static final String MEDIA_TYPE = "application/vnd.wuuees.columnar+json";
+
+    private static final String LOGGER_SEPARATOR = " - ";
+
+    // 行首时间戳 yyyy-MM-dd HH:mm:ss.SSS 的长度
+    private static final int TIMESTAMP_LENGTH = 23;
+
+
+    /**
+     * 按列编码日志行，只填充各列和字典，分页等信息由调用方设置
+     */
+    public LogQueryDto.LogColumnarResponse encode(List<String> lines) {
+        int size = lines.size();
+        Dictionary levelDict = new Dictionary();
+        Dictionary threadDict = new Dictionary();
+        Dictionary loggerDict = new Dictionary();
+        long[] timeDeltas = new long[size];
+        int[] levels = new int[size];
+        int[] threads = new int[size];
+        int[] loggers = new int[size];
+        List<String> messages = new ArrayList<>(size);
+
+        long previousMillis = 0;
+        for (int i = 0; i < size; i++) {
+            String line = lines.get(i);
+            Columns columns = split(line);
+            if (columns == null) {
+                levels[i] = -1;
+                messages.add(line);
+                continue;
+            }
+            timeDeltas[i] = columns.millis - previousMillis;
+            previousMillis = columns.millis;
+            levels[i] = levelDict.indexOf(columns.level);
+            threads[i] = threadDict.indexOf(columns.thread);
+            loggers[i] = loggerDict.indexOf(columns.logger);
+            messages.add(columns.message);
+        }
+
+        LogQueryDto.LogColumnarResponse response = new LogQueryDto.LogColumnarResponse();
+        response.setLevelDict(levelDict.values);
+        response.setThreadDict(threadDict.values);
+        response.setLoggerDict(loggerDict.values);
+        response.setTimeDeltas(timeDeltas);
+        response.setLevels(levels);
+        response.setThreads(threads);
+        response.setLoggers(loggers);
+        response.setMessages(messages);
+        return response;
+    }
+
+    /**
+     * 拆分为各列，无法原样还原时返回null
+     * <p>
+     * 各列之间的分隔符与 join 完全相同，因此只需校验时间戳和级别的补齐，不必重新拼接比较
+     */
+    private Columns split(String line) {
+        int length = line.length();
+        if (length <= TIMESTAMP_LENGTH || line.charAt(TIMESTAMP_LENGTH) != ' ') {
+            return null;
+        }
+        long millis = parseMillis(line);
+        if (millis == Long.MIN_VALUE) {
+            return null;
+        }
+
+        // 级别：单词字符，不足5个字符时右侧补空格
+        int levelStart = TIMESTAMP_LENGTH + 1;
+        int i = levelStart;
+        while (i < length && isWordChar(line.charAt(i))) {
+            i++;
+        }
+        int levelEnd = i;
+        if (levelEnd == levelStart) {
+            return null;
+        }
+        int padded = Math.max(levelStart + LEVEL_WIDTH, levelEnd);
+        for (; i < padded; i++) {
+            if (i >= length || line.charAt(i) != ' ') {
+                return null;
+            }
+        }
+        if (!line.startsWith(" [", i)) {
+            return null;
+        }
+
+        int threadStart = i + 2;
+        int threadEnd = line.indexOf("] ", threadStart);
+        if (threadEnd < 0) {
+            return null;
+        }
+        int loggerEnd = line.indexOf(LOGGER_SEPARATOR, threadEnd + 2);
+        if (loggerEnd < 0) {
+            return null;
+        }
+        return new Columns(millis, line.substring(levelStart, levelEnd),
+                line.substring(threadStart, threadEnd),
+                line.substring(threadEnd + 2, loggerEnd),
+                line.substring(loggerEnd + LOGGER_SEPARATOR.length()));
+    }
+
+    /**
+     * 解析行首的 yyyy-MM-dd HH:mm:ss.SSS，格式不符或日期不合法时返回 Long.MIN_VALUE
+     */
+    private static long parseMillis(String line) {
+        for (int i = 0; i < TIMESTAMP_LENGTH; i++) {
+            char c = line.charAt(i);
+            boolean valid = switch (i) {
+                case 4, 7 -> c == '-';
+                case 10 -> c == ' ';
+                case 13, 16 -> c == ':';
+                case 19 -> c == '.';
+                default -> c >= '0' && c <= '9';
+            };
+            if (!valid) {
+                return Long.MIN_VALUE;
+            }
+        }
+        try {
+            LocalDateTime timestamp = LocalDateTime.of(digits(line, 0, 4), digits(line, 5, 2), digits(line, 8, 2),
+                    digits(line, 11, 2), digits(line, 14, 2), digits(line, 17, 2));
+            return timestamp.toEpochSecond(ZoneOffset.UTC) * 1000 + digits(line, 20, 3);
+        } catch (Exception ex) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private static int digits(String line, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            value = value * 10 + (line.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    /**
+     * 按前端的还原规则拼接日志行
+     */
+    static String join(long millis, String level, String thread, String logger, String message) {
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+        StringBuilder sb = new StringBuilder(64 + message.length());
+        sb.append(TIMESTAMP_FORMATTER.format(timestamp)).append(' ').append(level);
+        for (int i = level.length(); i < LEVEL_WIDTH; i++) {
+            sb.append(' ');
+        }
+        return sb.append(" [").append(thread).append("] ")
+                .append(logger).append(LOGGER_SEPARATOR).append(message)
+                .toString();
+    }
+
+
+    private static class Columns {
+
+        private final long millis;
+
+        private final String level;
+
+        private final String thread;
+
+        private final String logger;
+
+        private final String message;
+
+        Columns(long millis, String level, String thread, String logger, String message) {
+            this.millis = millis;
+            this.level = level;
+            this.thread = thread;
+            this.logger = logger;
+            this.message = message;
+        }
+    }
+
+
+    /**
+     * 字典，按首次出现的顺序编号
+     */
+    private static class Dictionary {
+
+        private final List<String> values = new ArrayList<>();
+
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        int indexOf(String value) {
+            return indexes.computeIfAbsent(value, key -> {
+                values.add(key);
+                return values.size() - 1;
+            });
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.wuuees.log.util;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/**
+ * 生成模拟的业务日志
+ * <p>
+ * 格式与 application.yaml 中的 logging.pattern.file 相同，级别分布为 ERROR 3%、WARN 7%、DEBUG 15%、INFO 75%，
+ * 一半的 ERROR 带有异常堆栈。用于负载生成和基准测试样本。
+ */
+public final class LogLineGenerator {
+
+    public static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    /**
+     * 日志内容末尾的序号标记，用于统计推送丢失的行
+     */
+    public static final String SEQUENCE_MARKER = ", seq=";
+
+    private static final String[] THREADS = {
+            "main", "http-nio-8080-exec-1", "http-nio-8080-exec-2", "http-nio-8080-exec-7",
+            "scheduling-1", "task-3", "kafka-consumer-0", "HikariPool-1 housekeeper"
+    };
+
+    private static final String[] LOGGERS = {
+            "c.w.order.service.OrderService", "c.w.order.controller.OrderController",
+            "c.w.pay.service.PaymentService", "c.w.user.service.UserService",
+            "o.s.web.servlet.DispatcherServlet", "c.zaxxer.hikari.pool.HikariPool",
+            "c.w.inventory.client.InventoryClient", "o.a.kafka.clients.consumer.KafkaConsumer"
+    };
+
+    private static final String[] MESSAGES = {
+            "create order success, orderId=%d, userId=%d, amount=%d.%02d",
+            "query user info, userId=%d, cost=%dms",
+            "payment callback received, orderId=%d, tradeNo=%d, status=SUCCESS",
+            "inventory deduct, skuId=%d, count=%d, remain=%d",
+            "Completed 200 OK in %d ms, uri=/api/order/%d",
+            "HikariPool-1 - Pool stats (total=%d, active=%d, idle=%d, waiting=0)",
+            "consumer poll records, topic=order-event, partition=%d, offset=%d",
+            "cache miss, key=user:%d, load from db cost=%dms"
+    };
+
+    private static final String[] ERRORS = {
+            "call inventory service timeout, orderId=%d, retry=%d",
+            "payment failed, orderId=%d, code=%d, msg=balance not enough",
+            "database connection refused, pool=HikariPool-1, active=%d, waiting=%d"
+    };
+
+    private LogLineGenerator() {
+    }
+
+
+    /**
+     * 生成一行（ERROR 时可能带堆栈）日志
+     */
+    public static void appendLine(StringBuilder sb, Random random, LocalDateTime time) {
+        appendLine(sb, random, time, -1);
+    }
+
+    /**
+     * 生成一行（ERROR 时可能带堆栈）日志
+     *
+     * @param sequence 大于等于0时在日志内容末尾追加序号标记
+     */
+    public static void appendLine(StringBuilder sb, Random random, LocalDateTime time, long sequence) {
+        int dice = random.nextInt(100);
+        String level = dice < 3 ? "ERROR" : dice < 10 ? "WARN" : dice < 25 ? "DEBUG" : "INFO";
+        sb.append(FORMATTER.format(time)).append(' ')
+                .append(String.format("%-5s", level))
+                .append(" [").append(THREADS[random.nextInt(THREADS.length)]).append("] ")
+                .append(LOGGERS[random.nextInt(LOGGERS.length)]).append(" - ");
+
+        if ("ERROR".equals(level)) {
+            sb.append(String.format(ERRORS[random.nextInt(ERRORS.length)],
+                    random.nextInt(1_000_000), random.nextInt(10)));
+            appendSequence(sb, sequence);
+            if (random.nextBoolean()) {
+                appendStackTrace(sb, random);
+            }
+        } else {
+            sb.append(String.format(MESSAGES[random.nextInt(MESSAGES.length)],
+                    random.nextInt(1_000_000), random.nextInt(100_000),
+                    random.nextInt(1000), random.nextInt(100)));
+            appendSequence(sb, sequence);
+        }
+    }
+
+    /**
+     * 取日志行的序号标记，没有时返回-1
+     */
+    public static long sequenceOf(String line) {
+        int idx = line.lastIndexOf(SEQUENCE_MARKER);
+        if (idx < 0) {
+            return -1;
+        }
+        long sequence = 0;
+        int digits = 0;
+        for (int i = idx + SEQUENCE_MARKER.length(); i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            sequence = sequence * 10 + (c - '0');
+            digits++;
+        }
+        return digits > 0 ? sequence : -1;
+    }
+
+    private static void appendSequence(StringBuilder sb, long sequence) {
+        if (sequence >= 0) {
+            sb.append(SEQUENCE_MARKER).append(sequence);
+        }
+        sb.append('\n');
+    }
+
+    private static void appendStackTrace(StringBuilder sb, Random random) {
+        sb.append("java.net.SocketTimeoutException: Read timed out\n");
+        int depth = 8 + random.nextInt(16);
+        for (int i = 0; i < depth; i++) {
+            sb.append("\tat com.wuuees.order.service.OrderService.method")
+                    .append(i).append("(OrderService.java:").append(100 + i).append(")\n");
+        }
+        sb.append("\t... ").append(random.nextInt(60)).append(" common frames omitted\n");
+    }
+}
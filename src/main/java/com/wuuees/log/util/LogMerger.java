@@ -0,0 +1,156 @@
+package com.wuuees.log.util;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * 按时间合并多个已排序的日志结果
+ * <p>
+ * 每个来源的行已按时间排序（正序或倒序）。没有时间的行（异常堆栈、无法解析的行）与所属的日志行作为一条记录整体移动，
+ * 正序时跟在前一条有时间的行之后，倒序时排在后一条有时间的行之前。时间相同时按来源顺序。
+ */
+public final class LogMerger {
+
+    private LogMerger() {
+    }
+
+
+    /**
+     * 合并多个来源的日志行
+     *
+     * @param sources     各来源的日志行
+     * @param timestampOf 取日志行的时间，没有时间时返回null
+     * @param reverse     各来源是否为倒序
+     * @return 合并后每一行的来源和在来源中的下标
+     */
+    public static List<Position> merge(List<List<String>> sources, Function<String, LocalDateTime> timestampOf,
+                                       boolean reverse) {
+        List<List<Entry>> grouped = new ArrayList<>();
+        int total = 0;
+        for (int source = 0; source < sources.size(); source++) {
+            grouped.add(group(sources.get(source), timestampOf, reverse));
+            total += sources.get(source).size();
+        }
+
+        // 没有时间的记录只可能是来源首尾的孤立行，成为队首时直接取出
+        Comparator<LocalDateTime> byTime = reverse ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        Comparator<Cursor> order = Comparator
+                .comparing((Cursor cursor) -> cursor.head().timestamp, Comparator.nullsFirst(byTime))
+                .thenComparingInt(cursor -> cursor.source);
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(order);
+        for (int source = 0; source < grouped.size(); source++) {
+            if (!grouped.get(source).isEmpty()) {
+                queue.add(new Cursor(source, grouped.get(source)));
+            }
+        }
+
+        List<Position> merged = new ArrayList<>(total);
+        while (!queue.isEmpty()) {
+            Cursor cursor = queue.poll();
+            Entry entry = cursor.head();
+            for (int index = entry.from; index < entry.to; index++) {
+                merged.add(new Position(cursor.source, index));
+            }
+            if (++cursor.next < cursor.entries.size()) {
+                queue.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 将一个来源的行按记录分组，每条记录是连续的下标区间
+     */
+    private static List<Entry> group(List<String> lines, Function<String, LocalDateTime> timestampOf,
+                                     boolean reverse) {
+        List<Entry> entries = new ArrayList<>();
+        if (!reverse) {
+            Entry current = null;
+            for (int i = 0; i < lines.size(); i++) {
+                LocalDateTime timestamp = timestampOf.apply(lines.get(i));
+                if (current == null || timestamp != null) {
+                    current = new Entry(timestamp, i);
+                    entries.add(current);
+                }
+                current.to = i + 1;
+            }
+            return entries;
+        }
+        // 倒序时从末尾向前分组，没有时间的行归入其后的有时间的行
+        Entry current = null;
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            LocalDateTime timestamp = timestampOf.apply(lines.get(i));
+            if (current == null || timestamp != null) {
+                current = new Entry(timestamp, i + 1);
+                entries.add(current);
+            }
+            current.from = i;
+        }
+        Collections.reverse(entries);
+        return entries;
+    }
+
+
+    /**
+     * 合并结果中的一行：来源下标和在来源中的下标
+     */
+    public static class Position {
+
+        private final int source;
+
+        private final int index;
+
+        Position(int source, int index) {
+            this.source = source;
+            this.index = index;
+        }
+
+        public int getSource() {
+            return source;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+    }
+
+
+    private static class Entry {
+
+        private final LocalDateTime timestamp;
+
+        private int from;
+
+        private int to;
+
+        Entry(LocalDateTime timestamp, int boundary) {
+            this.timestamp = timestamp;
+            this.from = boundary;
+            this.to = boundary;
+        }
+    }
+
+
+    private static class Cursor {
+
+        private final int source;
+
+        private final List<Entry> entries;
+
+        private int next;
+
+        Cursor(int source, List<Entry> entries) {
+            this.source = source;
+            this.entries = entries;
+        }
+
+        Entry head() {
+            return entries.get(next);
+        }
+    }
+}
@@ -5,8 +5,15 @@ import com.wuuees.log.dto.LogLineInfo;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -17,11 +24,74 @@ public class LogParser {
 
     private static final Pattern LOG_PATTERN = Pattern.compile("(\\d{4}-\\d{2}-\\d{2}\\s+\\d{2}:\\d{2}:\\d{2}\\.\\d{3})\\s+(\\w+)\\s+(.*)");
 
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    // 行首时间戳 yyyy-MM-dd HH:mm:ss.SSS 的长度
+    private static final int TIMESTAMP_LENGTH = 23;
+
+    // JSON 日志中的时间、级别和消息字段，每组取行中最先出现的一个
+    private static final List<String> JSON_TIMESTAMP_FIELDS = List.of("@timestamp", "timestamp", "time");
+    private static final List<String> JSON_LEVEL_FIELDS = List.of("level", "severity", "log.level");
+    private static final List<String> JSON_MESSAGE_FIELDS = List.of("message", "msg");
+    private static final JsonLineScanner.FieldGroups JSON_FIELDS = new JsonLineScanner.FieldGroups(
+            List.of(JSON_TIMESTAMP_FIELDS, JSON_LEVEL_FIELDS, JSON_MESSAGE_FIELDS));
+    // 只按时间、级别过滤时不需要解码消息
+    private static final JsonLineScanner.FieldGroups JSON_HEADER_FIELDS = new JsonLineScanner.FieldGroups(
+            List.of(JSON_TIMESTAMP_FIELDS, JSON_LEVEL_FIELDS));
+
+    // ISO-8601 时间，日期和时间之间可以是 T 或空格，时区可选
+    private static final DateTimeFormatter JSON_TIMESTAMP_FORMATTER = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE)
+            .optionalStart().appendLiteral('T').optionalEnd()
+            .optionalStart().appendLiteral(' ').optionalEnd()
+            .append(DateTimeFormatter.ISO_LOCAL_TIME)
+            .optionalStart().appendOffset("+HH:MM:ss", "Z").optionalEnd()
+            .optionalStart().appendOffset("+HHmm", "Z").optionalEnd()
+            .toFormatter();
+
 
     /**
      * 解析日志行，提取时间和级别
      */
     public LogLineInfo parseLine(String line) {
+        return parseLine(line, true);
+    }
+
+    /**
+     * 只解析时间和级别，JSON 日志不提取消息（content 为 null），用于按时间、级别过滤和统计
+     */
+    public LogLineInfo parseTimeAndLevel(String line) {
+        return parseLine(line, false);
+    }
+
+    private LogLineInfo parseLine(String line, boolean withMessage) {
+        if (JsonLineScanner.isJsonLine(line)) {
+            LogLineInfo info = parseJsonLine(line, withMessage);
+            if (info != null) {
+                return info;
+            }
+        }
+
+        // 标准格式的日志行时间戳在行首，直接按位置解析，避免正则匹配
+        LogLineInfo info = parseStandardLine(line);
+        if (info != null) {
+            return info;
+        }
+
+        info = parsePatternLine(line);
+        if (info != null) {
+            return info;
+        }
+
+        // 不匹配标准格式，返回原始行
+        return new LogLineInfo(null, null, null, line);
+    }
+
+    /**
+     * 按正则解析日志行，不匹配时返回null
+     */
+    LogLineInfo parsePatternLine(String line) {
         Matcher matcher = LOG_PATTERN.matcher(line);
         if (matcher.find()) {
             String timestamp = matcher.group(1);
@@ -31,16 +101,161 @@ public class LogParser {
             LocalDateTime dateTime = parseTimestamp(timestamp);
             return new LogLineInfo(dateTime, level, content, line);
         }
+        return null;
+    }
 
-        // 不匹配标准格式，返回原始行
-        return new LogLineInfo(null, null, null, null);
+
+    /**
+     * 解析 JSON 格式的日志行，只提取时间、级别和消息字段，不是合法的 JSON 对象时返回null
+     */
+    private LogLineInfo parseJsonLine(String line, boolean withMessage) {
+        String[] fields = JsonLineScanner.extract(line, withMessage ? JSON_FIELDS : JSON_HEADER_FIELDS);
+        if (fields == null) {
+            return null;
+        }
+        return new LogLineInfo(fields[0] != null ? parseJsonTimestamp(fields[0]) : null,
+                fields[1], withMessage ? fields[2] : null, line);
+    }
+
+    /**
+     * 解析 JSON 日志的时间，带时区的时间和时间戳数值转换为本地时间，与查询条件保持一致
+     */
+    private LocalDateTime parseJsonTimestamp(String value) {
+        try {
+            if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+                // 10位及以下视为秒，否则视为毫秒
+                long epoch = Long.parseLong(value);
+                Instant instant = value.length() <= 10 ? Instant.ofEpochSecond(epoch) : Instant.ofEpochMilli(epoch);
+                return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+            }
+            TemporalAccessor parsed = JSON_TIMESTAMP_FORMATTER.parse(value);
+            if (parsed.isSupported(ChronoField.OFFSET_SECONDS)) {
+                return OffsetDateTime.from(parsed).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            }
+            return LocalDateTime.from(parsed);
+        } catch (Exception ex) {
+            return null;
+        }
     }
 
 
+    /**
+     * 行首是否为 yyyy-MM-dd HH:mm:ss.SSS 格式的时间戳，只检查字符，不解析
+     */
+    public boolean startsWithTimestamp(String line) {
+        return line.length() > TIMESTAMP_LENGTH && isTimestampAt(line);
+    }
+
+    /**
+     * 按位置解析以时间戳开头的日志行，格式不符时返回null，交给正则处理
+     * <p>
+     * 返回非null时结果必须与 parsePatternLine 相同
+     */
+    LogLineInfo parseStandardLine(String line) {
+        int length = line.length();
+        if (length <= TIMESTAMP_LENGTH || !isTimestampAt(line)) {
+            return null;
+        }
+
+        // 级别：时间戳后的空白 + 单词字符
+        int i = TIMESTAMP_LENGTH;
+        if (!isRegexSpace(line.charAt(i))) {
+            return null;
+        }
+        while (i < length && isRegexSpace(line.charAt(i))) {
+            i++;
+        }
+        int levelStart = i;
+        while (i < length && isWordChar(line.charAt(i))) {
+            i++;
+        }
+        if (i == levelStart || i == length || !isRegexSpace(line.charAt(i))) {
+            return null;
+        }
+        int levelEnd = i;
+        while (i < length && isRegexSpace(line.charAt(i))) {
+            i++;
+        }
+
+        // 内容中包含换行类字符时与正则 (.*) 的结果不同，交给正则处理
+        for (int j = i; j < length; j++) {
+            char c = line.charAt(j);
+            if (c == '\r' || c == '\n' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return null;
+            }
+        }
+
+        return new LogLineInfo(parseTimestampAt(line), line.substring(levelStart, levelEnd), line.substring(i), line);
+    }
+
+    /**
+     * 行首是否为 yyyy-MM-dd HH:mm:ss.SSS 格式（日期和时间之间仅有一个空格）
+     */
+    private boolean isTimestampAt(String line) {
+        for (int i = 0; i < TIMESTAMP_LENGTH; i++) {
+            char c = line.charAt(i);
+            boolean valid;
+            switch (i) {
+                case 4:
+                case 7:
+                    valid = c == '-';
+                    break;
+                case 10:
+                    valid = c == ' ';
+                    break;
+                case 13:
+                case 16:
+                    valid = c == ':';
+                    break;
+                case 19:
+                    valid = c == '.';
+                    break;
+                default:
+                    valid = c >= '0' && c <= '9';
+            }
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private LocalDateTime parseTimestampAt(String line) {
+        try {
+            return LocalDateTime.of(
+                    digits(line, 0, 4), digits(line, 5, 2), digits(line, 8, 2),
+                    digits(line, 11, 2), digits(line, 14, 2), digits(line, 17, 2),
+                    digits(line, 20, 3) * 1_000_000);
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
+    private int digits(String line, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            value = value * 10 + (line.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    /**
+     * 与正则 \s 一致的空白字符
+     */
+    private boolean isRegexSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * 与正则 \w 一致的单词字符
+     */
+    private boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
     private LocalDateTime parseTimestamp(String timestamp) {
         try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
-            return LocalDateTime.parse(timestamp, formatter);
+            return LocalDateTime.parse(timestamp, TIMESTAMP_FORMATTER);
         } catch (Exception ex) {
             return null;
         }
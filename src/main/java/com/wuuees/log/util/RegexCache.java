@@ -0,0 +1,313 @@
+package com.wuuees.log.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 正则表达式缓存
+ * <p>
+ * 按表达式缓存编译后的 Pattern，并提取匹配时必须出现的字面量子串，
+ * 先用 indexOf 过滤掉不可能匹配的行，只对剩余的行执行正则。
+ */
+@Component
+public class RegexCache {
+
+    private static final int MAX_CACHED_PATTERNS = 256;
+
+    // 字面量过短时过滤效果差，不作为预过滤条件
+    private static final int MIN_LITERAL_LENGTH = 2;
+
+    // 大小写不敏感的行首标志
+    private static final String IGNORE_CASE_FLAG = "(?i)";
+
+    // 不改变后续字符含义的单字符转义
+    private static final String SIMPLE_ESCAPES = "dDwWsSbBhHvVRXAzZGntrfae";
+
+    private final Map<String, CompiledRegex> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompiledRegex> eldest) {
+                    return size() > MAX_CACHED_PATTERNS;
+                }
+            });
+
+
+    /**
+     * 获取编译后的正则表达式
+     *
+     * @param expression 正则表达式
+     * @throws java.util.regex.PatternSyntaxException 表达式语法错误
+     */
+    public CompiledRegex get(String expression) {
+        CompiledRegex compiled = cache.get(expression);
+        if (compiled == null) {
+            compiled = new CompiledRegex(Pattern.compile(expression),
+                    requiredLiterals(expression),
+                    expression.startsWith(IGNORE_CASE_FLAG));
+            cache.put(expression, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * 提取匹配时必须出现的字面量，按长度降序排列
+     * <p>
+     * 只处理顶层的字面量字符，分组、字符类、选择分支等无法确定的结构一律跳过；
+     * 遇到无法安全分析的写法（顶层 |、内联标志、复杂转义）时返回空列表，不做预过滤。
+     */
+    static List<String> requiredLiterals(String regex) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        int i = regex.startsWith(IGNORE_CASE_FLAG) ? IGNORE_CASE_FLAG.length() : 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            switch (c) {
+                case '\\': {
+                    if (i + 1 >= regex.length()) {
+                        return Collections.emptyList();
+                    }
+                    char next = regex.charAt(i + 1);
+                    if (next == 'Q') {
+                        int end = regex.indexOf("\\E", i + 2);
+                        String quoted = end < 0 ? regex.substring(i + 2) : regex.substring(i + 2, end);
+                        if (depth == 0) {
+                            run.append(quoted);
+                        }
+                        i = end < 0 ? regex.length() : end + 2;
+                        continue;
+                    }
+                    if (Character.isLetterOrDigit(next)) {
+                        if (SIMPLE_ESCAPES.indexOf(next) < 0) {
+                            return Collections.emptyList();
+                        }
+                        flush(run, literals);
+                    } else if (depth == 0) {
+                        run.append(next);
+                    }
+                    i += 2;
+                    continue;
+                }
+                case '[':
+                    flush(run, literals);
+                    i = skipCharClass(regex, i);
+                    if (i < 0) {
+                        return Collections.emptyList();
+                    }
+                    continue;
+                case '(':
+                    if (regex.startsWith("(?", i) && i + 2 < regex.length()) {
+                        char kind = regex.charAt(i + 2);
+                        // 内联标志会改变后续字面量的匹配方式
+                        if (Character.isLetter(kind) || kind == '-') {
+                            return Collections.emptyList();
+                        }
+                    }
+                    flush(run, literals);
+                    depth++;
+                    i++;
+                    continue;
+                case ')':
+                    flush(run, literals);
+                    depth--;
+                    i++;
+                    continue;
+                case '|':
+                    if (depth == 0) {
+                        return Collections.emptyList();
+                    }
+                    i++;
+                    continue;
+                case '*':
+                case '?':
+                    // 前一个字符可以不出现
+                    dropLast(run);
+                    flush(run, literals);
+                    i = skipQuantifierSuffix(regex, i + 1);
+                    continue;
+                case '+':
+                    flush(run, literals);
+                    i = skipQuantifierSuffix(regex, i + 1);
+                    continue;
+                case '{': {
+                    int end = regex.indexOf('}', i);
+                    if (end < 0) {
+                        return Collections.emptyList();
+                    }
+                    String min = StringUtils.substringBefore(regex.substring(i + 1, end), ",").trim();
+                    if (!StringUtils.isNumeric(min)) {
+                        return Collections.emptyList();
+                    }
+                    if (Integer.parseInt(min) == 0) {
+                        dropLast(run);
+                    }
+                    flush(run, literals);
+                    i = skipQuantifierSuffix(regex, end + 1);
+                    continue;
+                }
+                case '.':
+                case '^':
+                case '$':
+                    flush(run, literals);
+                    i++;
+                    continue;
+                default:
+                    if (depth == 0) {
+                        run.append(c);
+                    }
+                    i++;
+            }
+        }
+        flush(run, literals);
+        literals.sort(Comparator.comparingInt(String::length).reversed());
+        return literals;
+    }
+
+    private static void flush(StringBuilder run, List<String> literals) {
+        if (run.length() >= MIN_LITERAL_LENGTH) {
+            literals.add(run.toString());
+        }
+        run.setLength(0);
+    }
+
+    private static void dropLast(StringBuilder run) {
+        if (run.length() > 0) {
+            run.setLength(run.length() - 1);
+        }
+    }
+
+    /**
+     * 跳过懒惰/占有量词的后缀
+     */
+    private static int skipQuantifierSuffix(String regex, int i) {
+        return i < regex.length() && (regex.charAt(i) == '?' || regex.charAt(i) == '+') ? i + 1 : i;
+    }
+
+    /**
+     * 跳过字符类，返回 ] 之后的位置，格式错误时返回-1
+     */
+    private static int skipCharClass(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                depth++;
+                // 紧跟在 [ 或 [^ 之后的 ] 是普通字符
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '^') {
+                    i++;
+                }
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') {
+                    i++;
+                }
+            } else if (c == ']') {
+                depth--;
+                if (depth == 0) {
+                    return i + 1;
+                }
+            }
+            i++;
+        }
+        return -1;
+    }
+
+
+    private static void checkDeadline(long deadlineNanos) {
+        if (System.nanoTime() > deadlineNanos) {
+            throw new IllegalArgumentException("正则匹配超时，请简化表达式或缩小查询范围");
+        }
+    }
+
+
+    /**
+     * 编译后的正则表达式及其预过滤字面量
+     */
+    public static class CompiledRegex {
+
+        private final Pattern pattern;
+
+        private final List<String> literals;
+
+        private final boolean ignoreCase;
+
+        CompiledRegex(Pattern pattern, List<String> literals, boolean ignoreCase) {
+            this.pattern = pattern;
+            this.literals = literals;
+            this.ignoreCase = ignoreCase;
+        }
+
+        /**
+         * 判断日志行是否匹配
+         *
+         * @param line         日志行
+         * @param timeoutNanos 单行的最长匹配时间（纳秒），从正则开始匹配时计时，超时抛出 IllegalArgumentException
+         */
+        public boolean find(String line, long timeoutNanos) {
+            for (String literal : literals) {
+                boolean contains = ignoreCase ? StringUtils.containsIgnoreCase(line, literal) : line.contains(literal);
+                if (!contains) {
+                    return false;
+                }
+            }
+            long deadlineNanos = System.nanoTime() + timeoutNanos;
+            return pattern.matcher(new TimeLimitedCharSequence(line, deadlineNanos)).find();
+        }
+
+        List<String> getLiterals() {
+            return literals;
+        }
+    }
+
+
+    /**
+     * 读取字符时检查截止时间，用于中断灾难性回溯
+     */
+    private static class TimeLimitedCharSequence implements CharSequence {
+
+        private final CharSequence inner;
+
+        private final long deadlineNanos;
+
+        private int reads;
+
+        TimeLimitedCharSequence(CharSequence inner, long deadlineNanos) {
+            this.inner = inner;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if ((++reads & 0x3FF) == 0) {
+                checkDeadline(deadlineNanos);
+            }
+            return inner.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return inner.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new TimeLimitedCharSequence(inner.subSequence(start, end), deadlineNanos);
+        }
+
+        @Override
+        public String toString() {
+            return inner.toString();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.wuuees.log.util;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实时推送的自适应抽样
+ * <p>
+ * 按统计周期测量文件的写入速率，超过阈值时进入降级模式：ERROR/WARN 全部推送，
+ * 其余级别按间隔抽样，使推送速率接近设定值；速率连续若干个周期低于阈值的一半后恢复全量推送。
+ * 没有级别的行（如异常堆栈）跟随上一条有级别的行。
+ */
+public class TailSampler {
+
+    // 降级模式下始终推送的级别
+    private static final Set<String> PRIORITY_LEVELS = Set.of("ERROR", "WARN", "FATAL");
+
+    // 速率连续低于阈值一半的周期数达到该值时恢复
+    private static final int RECOVER_PERIODS = 3;
+
+    private final long degradeLinesPerSecond;
+
+    private final long sampleLinesPerSecond;
+
+    private boolean degraded;
+
+    private int calmPeriods;
+
+    // 抽样间隔，每 stride 行推送一行
+    private long stride = 1;
+
+    private long sequence;
+
+    // 上一条有级别的行是否推送
+    private boolean lastAccepted = true;
+
+    // 本周期的统计
+    private long periodStart;
+    private long periodLines;
+    private long periodSampledLines;
+    private long periodDropped;
+    private Map<String, Long> periodLevels = new HashMap<>();
+    private String lastLevel = "";
+
+
+    /**
+     * @param degradeLinesPerSecond 进入降级模式的速率（行/秒）
+     * @param sampleLinesPerSecond  降级模式下非 ERROR/WARN 行的目标推送速率（行/秒）
+     */
+    public TailSampler(long degradeLinesPerSecond, long sampleLinesPerSecond) {
+        this.degradeLinesPerSecond = degradeLinesPerSecond;
+        this.sampleLinesPerSecond = Math.max(sampleLinesPerSecond, 1);
+        this.periodStart = System.nanoTime();
+    }
+
+
+    /**
+     * 判断一行是否推送
+     *
+     * @param level 日志级别，没有级别时为null
+     * @return 是否推送，未降级时始终为true
+     */
+    public synchronized boolean accept(String level) {
+        periodLines++;
+        if (level != null) {
+            lastLevel = level.toUpperCase();
+        }
+        periodLevels.merge(lastLevel, 1L, Long::sum);
+
+        // 本周期内的速率已超过阈值时立即降级，不等到周期结束
+        if (!degraded && periodLines > degradeLinesPerSecond) {
+            // 按至少一个周期估算速率，避免周期刚开始时的突发算出过大的间隔；
+            // 统计周期因线程繁忙被推迟时，也不会因为周期变长而误判
+            long elapsed = Math.max(System.nanoTime() - periodStart, TimeUnit.SECONDS.toNanos(1));
+            long rate = periodLines * TimeUnit.SECONDS.toNanos(1) / elapsed;
+            if (rate > degradeLinesPerSecond) {
+                degraded = true;
+                calmPeriods = 0;
+                updateStride(rate);
+            }
+        }
+        if (!degraded) {
+            return true;
+        }
+
+        if (level != null) {
+            if (PRIORITY_LEVELS.contains(lastLevel)) {
+                lastAccepted = true;
+            } else {
+                periodSampledLines++;
+                lastAccepted = ++sequence % stride == 0;
+            }
+        }
+        if (!lastAccepted) {
+            periodDropped++;
+        }
+        return lastAccepted;
+    }
+
+    /**
+     * 结束当前统计周期，返回本周期的统计并按速率切换模式
+     */
+    public synchronized Period endPeriod() {
+        long now = System.nanoTime();
+        long elapsed = Math.max(now - periodStart, 1);
+        long rate = periodLines * TimeUnit.SECONDS.toNanos(1) / elapsed;
+        boolean wasDegraded = degraded;
+
+        if (!degraded && rate > degradeLinesPerSecond) {
+            degraded = true;
+            calmPeriods = 0;
+        } else if (degraded && rate < degradeLinesPerSecond / 2) {
+            if (++calmPeriods >= RECOVER_PERIODS) {
+                degraded = false;
+                lastAccepted = true;
+            }
+        } else {
+            calmPeriods = 0;
+        }
+        if (degraded) {
+            updateStride(periodSampledLines * TimeUnit.SECONDS.toNanos(1) / elapsed);
+        }
+
+        Period period = new Period(TimeUnit.NANOSECONDS.toMillis(elapsed), rate, periodLines, periodDropped,
+                periodLevels, wasDegraded, degraded);
+        periodStart = now;
+        periodLines = 0;
+        periodSampledLines = 0;
+        periodDropped = 0;
+        periodLevels = new HashMap<>();
+        return period;
+    }
+
+    public synchronized boolean isDegraded() {
+        return degraded;
+    }
+
+    private void updateStride(long sampledRate) {
+        stride = Math.max(1, (sampledRate + sampleLinesPerSecond - 1) / sampleLinesPerSecond);
+    }
+
+
+    /**
+     * 一个统计周期的结果
+     */
+    @Getter
+    public static class Period {
+
+        private final long durationMillis;
+
+        private final long linesPerSecond;
+
+        private final long lines;
+
+        /**
+         * 因抽样未推送的行数
+         */
+        private final long dropped;
+
+        /**
+         * 各级别的行数，没有级别的行计入上一条有级别的行，文件开头没有级别的行计入空字符串
+         */
+        private final Map<String, Long> levels;
+
+        /**
+         * 本周期内是否处于降级模式（周期开始时已降级，或周期内触发降级）
+         */
+        private final boolean degradedBefore;
+
+        /**
+         * 下一个周期是否处于降级模式
+         */
+        private final boolean degradedAfter;
+
+        Period(long durationMillis, long linesPerSecond, long lines, long dropped, Map<String, Long> levels,
+               boolean degradedBefore, boolean degradedAfter) {
+            this.durationMillis = durationMillis;
+            this.linesPerSecond = linesPerSecond;
+            this.lines = lines;
+            this.dropped = dropped;
+            this.levels = levels;
+            this.degradedBefore = degradedBefore;
+            this.degradedAfter = degradedAfter;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.wuuees.log.util;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 日志模板挖掘（Drain 算法）
+ * <p>
+ * 日志按空白切分为单词后，先按单词数、再按前几个单词逐层分组，只在同一个叶子节点内按相似度匹配模板，
+ * 匹配成功时把不同的单词替换为 {@code <*>}，否则新建模板。模板数量有上限，
+ * 超出时淘汰最久未命中的模板，内存占用与日志行数无关。
+ * <p>
+ * 非线程安全，由调用方加锁。
+ */
+public class TemplateMiner {
+
+    public static final String WILDCARD = "<*>";
+
+    // 按前几个单词分组的层数
+    private static final int PREFIX_DEPTH = 2;
+
+    // 每个分组节点最多的子节点数，超出的单词归入通配节点
+    private static final int MAX_CHILDREN = 100;
+
+    // 与模板相同的单词占比达到该值时归入该模板
+    private static final double SIMILARITY_THRESHOLD = 0.4;
+
+    private final int maxTemplates;
+
+    private final Map<Integer, Node> root = new HashMap<>();
+
+    // 按最近命中排序，用于淘汰
+    private final LinkedHashMap<Long, Template> templates = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long nextId = 1;
+
+    /**
+     * 因超出上限而淘汰的模板数
+     */
+    @Getter
+    private long evicted;
+
+
+    /**
+     * @param maxTemplates 最多保留的模板数
+     */
+    public TemplateMiner(int maxTemplates) {
+        this.maxTemplates = maxTemplates;
+    }
+
+
+    /**
+     * 将一行日志归入模板，返回所属的模板
+     *
+     * @param message 日志内容
+     * @param offset  日志行在文件中的偏移量
+     */
+    public Template add(String message, long offset) {
+        return add(tokenize(message), offset);
+    }
+
+    /**
+     * 将已切分的单词归入模板，单词由 {@link #tokenize} 生成
+     */
+    public Template add(String[] tokens, long offset) {
+        List<Template> leaf = leaf(tokens);
+        Template template = mostSimilar(leaf, tokens);
+        if (template == null) {
+            template = new Template(nextId++, tokens, leaf, offset);
+            leaf.add(template);
+            templates.put(template.id, template);
+            if (templates.size() > maxTemplates) {
+                Template eldest = templates.values().iterator().next();
+                templates.remove(eldest.id);
+                eldest.leaf.remove(eldest);
+                evicted++;
+            }
+        } else {
+            template.merge(tokens, offset);
+            // 更新访问顺序
+            templates.get(template.id);
+        }
+        return template;
+    }
+
+    /**
+     * 按行数降序返回模板
+     */
+    public List<Template> templates() {
+        List<Template> result = new ArrayList<>(templates.values());
+        result.sort((a, b) -> Long.compare(b.count, a.count));
+        return result;
+    }
+
+    /**
+     * 按空白切分，含数字的单词视为变量
+     */
+    public static String[] tokenize(String message) {
+        String[] tokens = message.trim().split("\\s+");
+        if (tokens.length == 1 && tokens[0].isEmpty()) {
+            return new String[0];
+        }
+        for (int i = 0; i < tokens.length; i++) {
+            if (hasDigit(tokens[i])) {
+                tokens[i] = WILDCARD;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 按单词数和前几个单词找到叶子节点
+     */
+    private List<Template> leaf(String[] tokens) {
+        Node node = root.computeIfAbsent(tokens.length, key -> new Node());
+        for (int depth = 0; depth < Math.min(PREFIX_DEPTH, tokens.length); depth++) {
+            String token = tokens[depth];
+            Node child = node.children.get(token);
+            if (child == null) {
+                if (node.children.size() < MAX_CHILDREN) {
+                    child = new Node();
+                    node.children.put(token, child);
+                } else {
+                    child = node.children.computeIfAbsent(WILDCARD, key -> new Node());
+                }
+            }
+            node = child;
+        }
+        return node.templates;
+    }
+
+    /**
+     * 在叶子节点中找相同单词占比最高的模板，占比相同时取通配符多的，低于阈值时返回null
+     */
+    private Template mostSimilar(List<Template> leaf, String[] tokens) {
+        Template best = null;
+        double bestSimilarity = -1;
+        int bestWildcards = -1;
+        for (Template template : leaf) {
+            int same = 0;
+            int wildcards = 0;
+            for (int i = 0; i < tokens.length; i++) {
+                String token = template.tokens[i];
+                if (token.equals(WILDCARD)) {
+                    wildcards++;
+                } else if (token.equals(tokens[i])) {
+                    same++;
+                }
+            }
+            double similarity = tokens.length == 0 ? 1.0 : (double) same / tokens.length;
+            if (similarity > bestSimilarity || (similarity == bestSimilarity && wildcards > bestWildcards)) {
+                best = template;
+                bestSimilarity = similarity;
+                bestWildcards = wildcards;
+            }
+        }
+        return best != null && bestSimilarity >= SIMILARITY_THRESHOLD ? best : null;
+    }
+
+    /**
+     * 单词与模板完全匹配（模板中非通配的单词全部相同）
+     */
+    public static boolean matches(String[] template, String[] tokens) {
+        if (template.length != tokens.length) {
+            return false;
+        }
+        for (int i = 0; i < template.length; i++) {
+            if (!template[i].equals(WILDCARD) && !template[i].equals(tokens[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasDigit(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c >= '0' && c <= '9') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    private static class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+
+        private final List<Template> templates = new ArrayList<>();
+    }
+
+
+    /**
+     * 日志模板
+     */
+    public static class Template {
+
+        @Getter
+        private final long id;
+
+        private final String[] tokens;
+
+        // 所在的叶子节点，淘汰时从中移除
+        private final List<Template> leaf;
+
+        @Getter
+        private long count;
+
+        // 第一次和最后一次出现的行偏移量
+        @Getter
+        private long firstOffset;
+
+        @Getter
+        private long lastOffset;
+
+        Template(long id, String[] tokens, List<Template> leaf, long offset) {
+            this.id = id;
+            this.tokens = tokens;
+            this.leaf = leaf;
+            this.count = 1;
+            this.firstOffset = offset;
+            this.lastOffset = offset;
+        }
+
+        void merge(String[] other, long offset) {
+            for (int i = 0; i < tokens.length; i++) {
+                if (!tokens[i].equals(other[i])) {
+                    tokens[i] = WILDCARD;
+                }
+            }
+            count++;
+            firstOffset = Math.min(firstOffset, offset);
+            lastOffset = Math.max(lastOffset, offset);
+        }
+
+        public String getText() {
+            return String.join(" ", tokens);
+        }
+
+        /**
+         * 当前模板单词的副本，模板之后的合并不影响副本
+         */
+        public String[] getTokens() {
+            return tokens.clone();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.wuuees.log.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wuuees.log.service.TestServices;
+import com.wuuees.log.util.LogColumnEncoder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class LogControllerTest {
+
+    @TempDir
+    Path logDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        LogController controller = new LogController();
+        ReflectionTestUtils.setField(controller, "logService", TestServices.logService(TestServices.config(logDir)));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void queriesColumnarWithDedicatedMediaType() throws Exception {
+        Files.writeString(logDir.resolve("app.log"), """
+                2024-01-01 10:00:01.000 INFO  [main] c.w.A - start
+                2024-01-01 10:00:01.250 ERROR [worker-1] c.w.B - timeout
+                \tat c.w.B.call(B.java:1)
+                """, StandardCharsets.UTF_8);
+
+        String body = mockMvc.perform(post("/api/logs/query/columnar")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fileName\":\"app.log\",\"reverse\":false,\"pageSize\":100}"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(LogColumnEncoder.MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        JsonNode result = objectMapper.readTree(body);
+        assertEquals("[\"INFO\",\"ERROR\"]", result.get("levelDict").toString());
+        assertEquals("[\"main\",\"worker-1\"]", result.get("threadDict").toString());
+        assertEquals("[0,1,-1]", result.get("levels").toString());
+        assertEquals(250, result.get("timeDeltas").get(1).asLong());
+        assertEquals("\tat c.w.B.call(B.java:1)", result.get("messages").get(2).asText());
+    }
+}
@@ -0,0 +1,133 @@
+package com.wuuees.log.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.wuuees.log.config.LogConfigProperties;
+import com.wuuees.log.dto.LogClusterDto;
+import com.wuuees.log.dto.LogQueryDto;
+import com.wuuees.log.util.LogParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogClusterServiceTest {
+
+    @TempDir
+    Path logDir;
+
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    // 慢节点一直等到测试结束
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private LogConfigProperties config;
+
+    private LogClusterService clusterService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(logDir.resolve("app.log"), """
+                2024-01-01 10:00:01.000 INFO  [main] a - local 1
+                2024-01-01 10:00:03.000 INFO  [main] a - local 3
+                """, StandardCharsets.UTF_8);
+        config = TestServices.config(logDir);
+        config.setClusterTimeoutMillis(2000);
+        LogMetricsService metricsService = TestServices.metricsService();
+
+        clusterService = new LogClusterService();
+        ReflectionTestUtils.setField(clusterService, "logConfigProperties", config);
+        ReflectionTestUtils.setField(clusterService, "logService", TestServices.logService(config, metricsService));
+        ReflectionTestUtils.setField(clusterService, "logParser", new LogParser());
+        ReflectionTestUtils.setField(clusterService, "logMetricsService", metricsService);
+        ReflectionTestUtils.setField(clusterService, "restClientBuilder", RestClient.builder());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        clusterService.destroy();
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void returnsPartialResultWhenPeersAreSlowOrFailing() throws IOException {
+        String ok = stub(exchange -> respond(exchange, 200, """
+                {"lines":["2024-01-01 10:00:02.000 INFO  [main] a - peer 2"],"totalLines":1,"currentPage":1,"totalPages":1}
+                """));
+        String slow = stub(exchange -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "{}");
+        });
+        String failing = stub(exchange -> respond(exchange, 500, "{}"));
+        config.setClusterPeers(List.of(ok, slow, failing + "/"));
+        clusterService.afterPropertiesSet();
+
+        LogQueryDto.LogQueryRequest req = new LogQueryDto.LogQueryRequest();
+        req.setFileName("app.log");
+        req.setPageSize(100);
+        req.setReverse(false);
+
+        long start = System.nanoTime();
+        LogClusterDto.ClusterQueryResponse response = clusterService.queryLogs(req);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 慢节点不拖慢整个查询
+        assertTrue(elapsedMillis < 5000, "elapsed " + elapsedMillis);
+        assertTrue(response.isPartial());
+        assertEquals(List.of("ok", "ok", "timeout", "error"), response.getNodeResults().stream()
+                .map(LogClusterDto.NodeResult::getStatus).collect(Collectors.toList()));
+        assertEquals("HTTP 500", response.getNodeResults().get(3).getMessage());
+        assertEquals(3, response.getTotalLines());
+        assertEquals(List.of("local", "127.0.0.1:" + port(ok), "local"), response.getNodes());
+        assertEquals(List.of("2024-01-01 10:00:01.000 INFO  [main] a - local 1",
+                "2024-01-01 10:00:02.000 INFO  [main] a - peer 2",
+                "2024-01-01 10:00:03.000 INFO  [main] a - local 3"), response.getLines());
+    }
+
+    /**
+     * 启动一个节点桩，返回节点地址
+     */
+    private String stub(HttpHandler handler) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/logs/query", handler);
+        server.start();
+        servers.add(server);
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static String port(String url) {
+        return url.substring(url.lastIndexOf(':') + 1);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
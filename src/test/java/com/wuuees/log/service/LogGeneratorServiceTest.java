@@ -0,0 +1,151 @@
+package com.wuuees.log.service;
+
+import com.wuuees.log.config.LogConfigProperties;
+import com.wuuees.log.dto.LogGeneratorDto;
+import com.wuuees.log.util.LogLineGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogGeneratorServiceTest {
+
+    @TempDir
+    Path logDir;
+
+    private LogGeneratorService generatorService;
+
+    @BeforeEach
+    void setUp() {
+        LogConfigProperties config = TestServices.config(logDir);
+        generatorService = new LogGeneratorService();
+        ReflectionTestUtils.setField(generatorService, "logConfigProperties", config);
+        ReflectionTestUtils.setField(generatorService, "logService", TestServices.logService(config));
+    }
+
+    @AfterEach
+    void tearDown() {
+        generatorService.destroy();
+    }
+
+    @Test
+    void rejectsFileNamesRejectedByQueries() throws IOException {
+        for (String fileName : List.of("../load.log", "sub/load.log", "load.json")) {
+            LogGeneratorDto.GeneratorRequest req = request(0);
+            req.setFileName(fileName);
+            assertThrows(IllegalArgumentException.class, () -> generatorService.start(req), fileName);
+        }
+        assertEquals(List.of(), files());
+    }
+
+    @Test
+    void rotatesAndKeepsHistory() throws Exception {
+        generatorService.start(request(2));
+        awaitStatus(status -> status.getRotations() >= 3);
+        generatorService.stop();
+
+        assertEquals(List.of("load.1.log", "load.2.log", "load.log"), files());
+        assertTrue(Files.size(logDir.resolve("load.1.log")) >= 1024 * 1024);
+    }
+
+    @Test
+    void truncatesInPlaceWithoutHistory() throws Exception {
+        generatorService.start(request(0));
+        awaitStatus(status -> status.getEntriesWritten() > 0);
+
+        // 轮转前打开的文件在轮转后仍能读到新写入的内容
+        try (RandomAccessFile reader = new RandomAccessFile(logDir.resolve("load.log").toFile(), "r")) {
+            awaitStatus(status -> status.getRotations() >= 1 && length(reader) > 0);
+            generatorService.stop();
+
+            byte[] head = new byte[4096];
+            reader.seek(0);
+            int read = reader.read(head);
+            String firstLine = new String(head, 0, read, StandardCharsets.UTF_8).split("\n")[0];
+            assertTrue(LogLineGenerator.sequenceOf(firstLine) > 0, firstLine);
+        }
+        assertEquals(List.of("load.log"), files());
+    }
+
+    @Test
+    void dropsBacklogAfterStall() throws Exception {
+        LogGeneratorDto.GeneratorRequest req = request(5);
+        req.setLinesPerSecond(1000);
+        generatorService.start(req);
+
+        // 占住写入线程 2 秒，模拟长时间停顿
+        CountDownLatch stalled = new CountDownLatch(1);
+        executor().execute(() -> {
+            stalled.countDown();
+            sleep(2000);
+        });
+        stalled.await();
+        awaitStatus(status -> status.getEntriesSkipped() > 0);
+        sleep(200);
+        LogGeneratorDto.GeneratorStatus status = generatorService.stop();
+
+        // 只补写1秒的量，之后按设定速率写入，不会在停顿后补齐全部2秒
+        assertTrue(status.getEntriesWritten() < 1600, "written " + status.getEntriesWritten());
+        assertTrue(status.getEntriesSkipped() > 500, "skipped " + status.getEntriesSkipped());
+    }
+
+    private LogGeneratorDto.GeneratorRequest request(int maxHistory) {
+        LogGeneratorDto.GeneratorRequest req = new LogGeneratorDto.GeneratorRequest();
+        req.setLinesPerSecond(50000);
+        req.setMaxFileSizeMb(1);
+        req.setMaxHistory(maxHistory);
+        return req;
+    }
+
+    private void awaitStatus(Predicate<LogGeneratorDto.GeneratorStatus> condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.test(generatorService.status())) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待生成状态超时: " + generatorService.status());
+            sleep(10);
+        }
+    }
+
+    private static long length(RandomAccessFile file) {
+        try {
+            return file.length();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> stream = Files.list(logDir)) {
+            return stream.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private ScheduledExecutorService executor() {
+        return (ScheduledExecutorService) ReflectionTestUtils.getField(generatorService, "executorService");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
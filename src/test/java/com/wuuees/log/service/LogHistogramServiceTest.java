@@ -0,0 +1,96 @@
+package com.wuuees.log.service;
+
+import com.wuuees.log.dto.LogHistogramDto;
+import com.wuuees.log.util.LogParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LogHistogramServiceTest {
+
+    @TempDir
+    Path logDir;
+
+    private LogHistogramService histogramService;
+
+    @BeforeEach
+    void setUp() {
+        LogMetricsService metricsService = TestServices.metricsService();
+        histogramService = new LogHistogramService();
+        ReflectionTestUtils.setField(histogramService, "logService",
+                TestServices.logService(TestServices.config(logDir), metricsService));
+        ReflectionTestUtils.setField(histogramService, "logParser", new LogParser());
+        ReflectionTestUtils.setField(histogramService, "logMetricsService", metricsService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        histogramService.destroy();
+    }
+
+    @Test
+    void countsLinesCrossingChunkBoundaries() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            String level = i % 10 == 0 ? "ERROR" : "INFO ";
+            sb.append(String.format("2024-01-01 10:%02d:%02d.000 %s [main] a - line %d%n", i / 60, i % 60, level, i));
+            if (i % 10 == 0) {
+                sb.append("\tat a.Foo.bar(Foo.java:1)\n");
+            }
+        }
+        Files.writeString(logDir.resolve("app.log"), sb.toString(), StandardCharsets.UTF_8);
+
+        LogHistogramDto.LogHistogramResponse whole = histogramService.histogram(List.of("app.log"), 60, null, null);
+        assertEquals(300, whole.getTotalLines());
+        assertEquals(List.of("ERROR", "INFO"), whole.getLevels());
+        assertEquals(Map.of("ERROR", 6L, "INFO", 54L), whole.getBuckets().get(0).getCounts());
+
+        // 块大小不整除行长，几乎每个块边界都落在行中间，部分块为空
+        for (long chunkSize : new long[]{1, 7, 61, 997}) {
+            histogramService.chunkSize = chunkSize;
+            LogHistogramDto.LogHistogramResponse chunked = histogramService.histogram(List.of("app.log"), 60, null, null);
+            assertEquals(counts(whole), counts(chunked), "chunkSize=" + chunkSize);
+        }
+    }
+
+    @Test
+    void cachesClosedFilesUntilModified() throws IOException {
+        Path path = logDir.resolve("app.log");
+        Files.writeString(path, "2024-01-01 10:00:00.000 INFO  [main] a - one\n", StandardCharsets.UTF_8);
+        File file = path.toFile();
+        file.setLastModified(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(5));
+
+        assertEquals(0, histogramService.histogram(List.of("app.log"), 60, null, null).getCachedFiles());
+        LogHistogramDto.LogHistogramResponse cached = histogramService.histogram(List.of("app.log"), 60, null, null);
+        assertEquals(1, cached.getCachedFiles());
+        assertEquals(0, cached.getScannedBytes());
+
+        Files.writeString(path, "2024-01-01 10:00:30.000 WARN  [main] a - two\n", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+        LogHistogramDto.LogHistogramResponse changed = histogramService.histogram(List.of("app.log"), 60,
+                LocalDateTime.of(2024, 1, 1, 10, 0), null);
+        assertEquals(0, changed.getCachedFiles());
+        assertEquals(2, changed.getTotalLines());
+    }
+
+    private static Map<LocalDateTime, Map<String, Long>> counts(LogHistogramDto.LogHistogramResponse response) {
+        return response.getBuckets().stream()
+                .collect(Collectors.toMap(LogHistogramDto.Bucket::getTime, LogHistogramDto.Bucket::getCounts));
+    }
+}
@@ -0,0 +1,150 @@
+package com.wuuees.log.service;
+
+import com.wuuees.log.config.LogConfigProperties;
+import com.wuuees.log.util.LogParser;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class LogMonitorServiceTest {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    @TempDir
+    Path logDir;
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+
+    private final LogTemplateService templateService = mock(LogTemplateService.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LogConfigProperties config;
+
+    private LogMonitorService monitorService;
+
+    @BeforeEach
+    void setUp() {
+        config = TestServices.config(logDir);
+        monitorService = new LogMonitorService();
+        ReflectionTestUtils.setField(monitorService, "logConfig", config);
+        ReflectionTestUtils.setField(monitorService, "logParser", new LogParser());
+        ReflectionTestUtils.setField(monitorService, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(monitorService, "logMetricsService", TestServices.metricsService(meterRegistry));
+        ReflectionTestUtils.setField(monitorService, "logTemplateService", templateService);
+    }
+
+    @Test
+    void recordsLagFromEachLineTimestamp() throws IOException {
+        Files.createFile(logDir.resolve("app.log"));
+        monitorService.startMonitoring("app.log");
+
+        // 同一批中较早写入的行延迟更大
+        LocalDateTime now = LocalDateTime.now();
+        String first = line(now.minusSeconds(5), "first");
+        String second = line(now, "second");
+        append(first + "\n" + second + "\n\tat a.Foo.bar(Foo.java:1)\n");
+        monitorService.processFileChange("app.log");
+
+        assertEquals(List.of(first, second, "\tat a.Foo.bar(Foo.java:1)"), pushedLines());
+        Timer lag = meterRegistry.get("wuuees.log.tail.lag").timer();
+        // 堆栈行没有时间戳，不计入
+        assertEquals(2, lag.count());
+        assertTrue(lag.max(TimeUnit.MILLISECONDS) >= 5000);
+        // 新增的行交给模板服务在后台归类
+        verify(templateService).refresh(logDir.resolve("app.log").toFile());
+    }
+
+    @Test
+    void waitsForPartialLineToComplete() throws IOException {
+        Files.createFile(logDir.resolve("app.log"));
+        monitorService.startMonitoring("app.log");
+
+        // 新增内容只有半行，缓冲区恰好被读满
+        String line = line(LocalDateTime.now(), "partial line");
+        append(line.substring(0, 30));
+        monitorService.processFileChange("app.log");
+        assertEquals(List.of(), pushedLines());
+
+        append(line.substring(30) + "\n");
+        monitorService.processFileChange("app.log");
+        assertEquals(List.of(line), pushedLines());
+    }
+
+    @Test
+    void degradesOnlyWhenRateExceedsThreshold() throws Exception {
+        config.setTailDegradeLinesPerSecond(10);
+        Files.createFile(logDir.resolve("app.log"));
+        monitorService.startMonitoring("app.log");
+
+        // 统计周期被推迟到 1.5 秒，周期内行数超过阈值但速率没有超过
+        Thread.sleep(1500);
+        append(lines(12));
+        monitorService.processFileChange("app.log");
+        assertEquals(12, pushedLines().size());
+        assertEquals(List.of(), tailModes());
+
+        append(lines(30));
+        monitorService.processFileChange("app.log");
+        assertEquals(List.of("degraded"), tailModes());
+    }
+
+    private String lines(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(line(LocalDateTime.now(), "line " + i)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private String line(LocalDateTime time, String message) {
+        return FORMATTER.format(time) + " INFO  [main] c.w.Test - " + message;
+    }
+
+    private void append(String content) throws IOException {
+        Files.writeString(logDir.resolve("app.log"), content, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    private List<String> pushedLines() {
+        return messages("new_log_line", "content");
+    }
+
+    private List<String> tailModes() {
+        return messages("tail_mode", "mode");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> messages(String type, String field) {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, atLeast(0)).convertAndSend(anyString(), captor.capture());
+        return captor.getAllValues().stream()
+                .map(message -> (Map<String, Object>) message)
+                .filter(message -> type.equals(message.get("type")))
+                .map(message -> (String) message.get(field))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,128 @@
+package com.wuuees.log.service;
+
+import com.wuuees.log.dto.LogQueryDto;
+import com.wuuees.log.util.LogParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LogServiceQueryTest {
+
+    @TempDir
+    Path logDir;
+
+    private LogService logService;
+
+    @BeforeEach
+    void setUp() {
+        logService = TestServices.logService(TestServices.config(logDir));
+    }
+
+    @Test
+    void filtersJsonLinesByFieldLevelAndTime() throws IOException {
+        write("json.log", """
+                {"@timestamp":"2024-01-01T10:00:01","level":"INFO","traceId":"t1","message":"start"}
+                {"@timestamp":"2024-01-01T10:00:02","level":"ERROR","traceId":"t1","message":"timeout"}
+                {"time":"2024-01-01T10:00:03","severity":"ERROR","traceId":"t2","msg":"refused"}
+                {"@timestamp":"2024-01-01T10:00:04","level":"ERROR","traceId":"t1","traceId":"t1","message":"retry failed"}
+                not json at all, traceId t1 ERROR
+                """);
+
+        LogQueryDto.LogQueryRequest req = request("json.log");
+        req.setLevel("error");
+        req.setFields(Map.of("traceId", "t1"));
+        assertEquals(List.of("timeout", "retry failed"), messages(logService.queryLogs(req)));
+
+        req = request("json.log");
+        req.setLevel("ERROR");
+        req.setStartTime(LocalDateTime.of(2024, 1, 1, 10, 0, 3));
+        assertEquals(List.of("refused", "retry failed"), messages(logService.queryLogs(req)));
+
+        // 重复的字段不能代替缺少的字段
+        req = request("json.log");
+        req.setFields(Map.of("traceId", "t1", "userId", "42"));
+        assertEquals(0, logService.queryLogs(req).getTotalLines());
+    }
+
+    @Test
+    void stopsAtDeadline() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            content.append("2024-01-01 10:00:01.000 INFO  [main] a - line ").append(i).append('\n');
+        }
+        write("app.log", content.toString());
+
+        LogQueryDto.LogQueryRequest req = request("app.log");
+        req.setKeyword("line");
+        assertThrows(CancellationException.class, () -> logService.queryLogs(req, System.nanoTime() - 1));
+        assertEquals(5000, logService.queryLogs(req, System.nanoTime() + TimeUnit.SECONDS.toNanos(10))
+                .getTotalLines());
+    }
+
+    @Test
+    void pagesReversedMatchesWithContext() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= 10; i++) {
+            content.append("line ").append(i)
+                    .append(i == 3 || i == 5 || i == 9 ? " hit" : "").append('\n');
+        }
+        write("app.log", content.toString());
+
+        LogQueryDto.LogQueryRequest req = request("app.log");
+        req.setKeyword("hit");
+        req.setBeforeContext(1);
+        req.setAfterContext(1);
+        req.setReverse(true);
+        req.setPageSize(3);
+
+        // 重叠的上下文只出现一次，总行数和总页数包含上下文行
+        LogQueryDto.LogQueryResponse page = logService.queryLogs(req);
+        assertEquals(8, page.getTotalLines());
+        assertEquals(3, page.getTotalPages());
+        assertEquals(List.of("line 10", "line 9 hit", "line 8"), page.getLines());
+        assertEquals(List.of(10, 9, 8), page.getLineNumbers());
+        assertEquals(List.of(true, false, true), page.getContext());
+
+        req.setPage(2);
+        page = logService.queryLogs(req);
+        assertEquals(List.of("line 6", "line 5 hit", "line 4"), page.getLines());
+        assertEquals(List.of(6, 5, 4), page.getLineNumbers());
+        assertEquals(List.of(true, false, true), page.getContext());
+
+        req.setPage(3);
+        page = logService.queryLogs(req);
+        assertEquals(List.of("line 3 hit", "line 2"), page.getLines());
+        assertEquals(List.of(3, 2), page.getLineNumbers());
+        assertEquals(List.of(false, true), page.getContext());
+    }
+
+    private LogQueryDto.LogQueryRequest request(String fileName) {
+        LogQueryDto.LogQueryRequest req = new LogQueryDto.LogQueryRequest();
+        req.setFileName(fileName);
+        req.setPageSize(100);
+        req.setReverse(false);
+        return req;
+    }
+
+    private void write(String fileName, String content) throws IOException {
+        Files.writeString(logDir.resolve(fileName), content, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> messages(LogQueryDto.LogQueryResponse response) {
+        LogParser parser = new LogParser();
+        return response.getLines().stream().map(line -> parser.parseLine(line).getContent()).toList();
+    }
+}
@@ -0,0 +1,176 @@
+package com.wuuees.log.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wuuees.log.config.LogConfigProperties;
+import com.wuuees.log.dto.LogQueryDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogServiceStreamTest {
+
+    private static final String CONTENT = """
+            2024-01-01 10:00:01.000 INFO  [main] a - start
+            2024-01-01 10:00:02.000 ERROR [main] a - timeout 1
+            2024-01-01 10:00:03.000 INFO  [main] a - retry
+            2024-01-01 10:00:04.000 ERROR [main] a - timeout 2
+            2024-01-01 10:00:05.000 INFO  [main] a - done
+            """;
+
+    @TempDir
+    Path logDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private LogConfigProperties config;
+
+    private LogService logService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(logDir.resolve("app.log"), CONTENT, StandardCharsets.UTF_8);
+        config = TestServices.config(logDir);
+        logService = TestServices.logService(config);
+    }
+
+    @Test
+    void alignsCursorToLineBoundary() throws IOException {
+        // 指向第二行中间的游标
+        long offset = CONTENT.indexOf("ERROR") + 3;
+
+        LogQueryDto.LogStreamRequest forward = request();
+        forward.setReverse(false);
+        forward.setCursor(cursor(offset));
+        assertEquals(List.of("retry", "timeout 2", "done"), messages(stream(forward)));
+
+        LogQueryDto.LogStreamRequest backward = request();
+        backward.setCursor(cursor(offset));
+        assertEquals(List.of("start"), messages(stream(backward)));
+    }
+
+    @Test
+    void emitsResumeCursorOnlyForMatchedLines() throws IOException {
+        LogQueryDto.LogStreamRequest req = request();
+        req.setReverse(false);
+        req.setKeyword("timeout");
+        req.setBeforeContext(1);
+        req.setAfterContext(1);
+        req.setLimit(1);
+
+        List<JsonNode> records = stream(req);
+        assertEquals(List.of("start", "timeout 1", "retry"), messages(records));
+        assertNull(textOrNull(records.get(0), "cursor"));
+        assertNull(textOrNull(records.get(2), "cursor"));
+
+        // 从命中行的游标继续，不会漏掉下一个命中行
+        req.setCursor(records.get(1).get("cursor").asText());
+        List<JsonNode> next = stream(req);
+        assertEquals(List.of("retry", "timeout 2", "done"), messages(next));
+        assertTrue(next.get(next.size() - 1).get("eof").asBoolean());
+    }
+
+    @Test
+    void rejectsMissingFile() {
+        LogQueryDto.LogStreamRequest req = request();
+        req.setFileName("missing.log");
+        assertThrows(IllegalArgumentException.class, () -> logService.streamLogs(req, false));
+    }
+
+    @Test
+    void regexTimeoutAppliesToEachLine() throws IOException {
+        // 客户端读取缓慢，整个流式查询远超过超时时间，但每一行的匹配都很快
+        config.setRegexTimeoutMillis(50);
+        LogQueryDto.LogStreamRequest req = request();
+        req.setReverse(false);
+        req.setKeyword("time.ut \\d");
+        req.setRegex(true);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        logService.streamLogs(req, false).writeTo(new SlowOutputStream(out, 100));
+        List<JsonNode> records = parse(out);
+        assertEquals(List.of("timeout 1", "timeout 2"), messages(records));
+        assertEquals("end", records.get(records.size() - 1).get("type").asText());
+    }
+
+    private LogQueryDto.LogStreamRequest request() {
+        LogQueryDto.LogStreamRequest req = new LogQueryDto.LogStreamRequest();
+        req.setFileName("app.log");
+        req.setLimit(100);
+        return req;
+    }
+
+    private List<JsonNode> stream(LogQueryDto.LogStreamRequest req) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        logService.streamLogs(req, false).writeTo(out);
+        return parse(out);
+    }
+
+    private List<JsonNode> parse(ByteArrayOutputStream out) throws IOException {
+        List<JsonNode> records = new ArrayList<>();
+        for (String json : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            records.add(objectMapper.readTree(json));
+        }
+        return records;
+    }
+
+    private static List<String> messages(List<JsonNode> records) {
+        List<String> messages = new ArrayList<>();
+        for (JsonNode record : records) {
+            if ("line".equals(record.get("type").asText())) {
+                String line = record.get("line").asText();
+                messages.add(line.substring(line.indexOf(" - ") + 3));
+            }
+        }
+        return messages;
+    }
+
+    private static String textOrNull(JsonNode record, String field) {
+        JsonNode node = record.get(field);
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    private static String cursor(long offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 每次刷新都等待一段时间，模拟读取缓慢的客户端
+     */
+    private static class SlowOutputStream extends FilterOutputStream {
+
+        private final long delayMillis;
+
+        SlowOutputStream(OutputStream out, long delayMillis) {
+            super(out);
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.flush();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.wuuees.log.service;
+
+import com.wuuees.log.config.LogConfigProperties;
+import com.wuuees.log.dto.LogQueryDto;
+import com.wuuees.log.dto.LogTemplateDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogTemplateServiceTest {
+
+    @TempDir
+    Path logDir;
+
+    private LogConfigProperties config;
+
+    private LogTemplateService templateService;
+
+    private LogService logService;
+
+    @BeforeEach
+    void setUp() {
+        config = TestServices.config(logDir);
+        LogMetricsService metricsService = TestServices.metricsService();
+        templateService = TestServices.templateService(config, metricsService);
+        logService = TestServices.logService(config, metricsService);
+        ReflectionTestUtils.setField(logService, "logTemplateService", templateService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        templateService.destroy();
+    }
+
+    @Test
+    void excludesTopTemplatesFromQuery() throws IOException {
+        append("""
+                2024-01-01 10:00:01.000 INFO  [main] c.w.Order - create order, orderId=1
+                2024-01-01 10:00:02.000 INFO  [main] c.w.Order - create order, orderId=2
+                {"@timestamp":"2024-01-01T10:00:03","level":"INFO","message":"create order, orderId=3"}
+                2024-01-01 10:00:04.000 ERROR [main] c.w.Stock - stock not enough
+                \tat c.w.Stock.take(Stock.java:10)
+                2024-01-01 10:00:05.000 INFO  [main] c.w.Order - create order, orderId=4
+                """);
+
+        LogQueryDto.LogQueryRequest req = new LogQueryDto.LogQueryRequest();
+        req.setFileName("app.log");
+        req.setPageSize(100);
+        req.setReverse(false);
+        req.setExcludeTopTemplates(1);
+
+        List<String> lines = logService.queryLogs(req).getLines();
+        // JSON 日志按级别和消息归类，与标准格式的行不属于同一模板
+        assertEquals(List.of("{\"@timestamp\":\"2024-01-01T10:00:03\",\"level\":\"INFO\",\"message\":\"create order, orderId=3\"}",
+                "2024-01-01 10:00:04.000 ERROR [main] c.w.Stock - stock not enough",
+                "\tat c.w.Stock.take(Stock.java:10)"), lines);
+    }
+
+    @Test
+    void rejectsQueryWhileMiningInBackground() throws Exception {
+        append("2024-01-01 10:00:01.000 INFO  [main] c.w.Order - create order, orderId=1\n");
+        config.setTemplateWaitMillis(50);
+
+        // 占住后台线程，模拟大文件归类耗时
+        CountDownLatch release = new CountDownLatch(1);
+        executor().submit(() -> {
+            release.await();
+            return null;
+        });
+        assertThrows(IllegalArgumentException.class, () -> templateService.excludeTopTemplates(file(), 1));
+
+        release.countDown();
+        assertEquals(false, templateService.excludeTopTemplates(file(), 1)
+                .test("2024-01-02 11:00:00.000 INFO  [main] c.w.Order - create order, orderId=9"));
+    }
+
+    @Test
+    void returnsMinedTemplatesWhileMiningInBackground() throws Exception {
+        append("2024-01-01 10:00:01.000 INFO  [main] c.w.Order - create order, orderId=1\n");
+        assertEquals(1, templateService.templates(file(), 10).getTotalLines());
+        config.setTemplateWaitMillis(50);
+
+        // 占住后台线程，模拟大文件归类耗时
+        CountDownLatch release = new CountDownLatch(1);
+        executor().submit(() -> {
+            release.await();
+            return null;
+        });
+        append("2024-01-01 10:00:02.000 WARN  [main] c.w.Stock - stock low\n");
+        LogTemplateDto.LogTemplateResponse response = templateService.templates(file(), 10);
+        assertTrue(response.isScanning());
+        assertEquals(1, response.getTotalLines());
+        assertEquals(1, response.getTemplateCount());
+
+        release.countDown();
+        awaitBackground();
+        response = templateService.templates(file(), 10);
+        assertFalse(response.isScanning());
+        assertEquals(2, response.getTotalLines());
+    }
+
+    @Test
+    void refreshMinesAppendedLinesInBackground() throws Exception {
+        String first = "2024-01-01 10:00:01.000 INFO  [main] c.w.Order - create order, orderId=1\n";
+        append(first);
+        // 从未获取过模板的文件不归类
+        templateService.refresh(file());
+        awaitBackground();
+        assertEquals(first.length(), templateService.templates(file(), 10).getScannedBytes());
+
+        append("2024-01-01 10:00:02.000 WARN  [main] c.w.Stock - stock low\n");
+        templateService.refresh(file());
+        awaitBackground();
+
+        LogTemplateDto.LogTemplateResponse response = templateService.templates(file(), 10);
+        assertEquals(0, response.getScannedBytes());
+        assertEquals(2, response.getTotalLines());
+    }
+
+    @Test
+    void keepsTemplatesWhileFirstLineIsWritten() throws IOException {
+        append("2024-01-01 10:00:01.000 INFO  [main] c.w.Order - create ");
+        assertEquals(0, templateService.templates(file(), 10).getTotalLines());
+
+        append("order, orderId=1\n2024-01-01 10:00:02.000 INFO  [main] c.w.Order - create order, orderId=2\n");
+        assertEquals(2, templateService.templates(file(), 10).getTotalLines());
+
+        String third = "2024-01-01 10:00:03.000 INFO  [main] c.w.Order - create order, orderId=3\n";
+        append(third);
+        LogTemplateDto.LogTemplateResponse response = templateService.templates(file(), 10);
+        assertEquals(third.length(), response.getScannedBytes());
+        assertEquals(List.of("INFO [main] c.w.Order - create order, <*>"), response.getTemplates().stream()
+                .map(LogTemplateDto.Template::getTemplate).collect(Collectors.toList()));
+        assertEquals(3, response.getTemplates().get(0).getCount());
+    }
+
+    private File file() {
+        return logDir.resolve("app.log").toFile();
+    }
+
+    private void append(String content) throws IOException {
+        Files.writeString(logDir.resolve("app.log"), content, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private ExecutorService executor() {
+        return (ExecutorService) ReflectionTestUtils.getField(templateService, "executorService");
+    }
+
+    /**
+     * 后台线程按提交顺序执行，等待之前提交的归类任务完成
+     */
+    private void awaitBackground() throws Exception {
+        executor().submit(() -> { }).get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,69 @@
+package com.wuuees.log.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wuuees.log.config.LogConfigProperties;
+import com.wuuees.log.util.LogColumnEncoder;
+import com.wuuees.log.util.LogParser;
+import com.wuuees.log.util.RegexCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+
+/**
+ * 在不启动 Spring 容器的情况下组装被测服务，测试和基准测试共用
+ */
+public final class TestServices {
+
+    private TestServices() {
+    }
+
+    /**
+     * 日志根路径为指定目录的配置
+     */
+    public static LogConfigProperties config(Path logDir) {
+        LogConfigProperties config = new LogConfigProperties();
+        config.setLogPath(logDir.toString());
+        return config;
+    }
+
+    /**
+     * 指标写入内存注册表
+     */
+    public static LogMetricsService metricsService() {
+        return metricsService(new SimpleMeterRegistry());
+    }
+
+    public static LogMetricsService metricsService(MeterRegistry meterRegistry) {
+        LogMetricsService metricsService = new LogMetricsService();
+        ReflectionTestUtils.setField(metricsService, "meterRegistry", meterRegistry);
+        return metricsService;
+    }
+
+    public static LogService logService(LogConfigProperties config) {
+        return logService(config, metricsService());
+    }
+
+    /**
+     * 查询服务，不含模板服务，需要时由调用方注入
+     */
+    public static LogService logService(LogConfigProperties config, LogMetricsService metricsService) {
+        LogService logService = new LogService();
+        ReflectionTestUtils.setField(logService, "logConfigProperties", config);
+        ReflectionTestUtils.setField(logService, "logParser", new LogParser());
+        ReflectionTestUtils.setField(logService, "logMetricsService", metricsService);
+        ReflectionTestUtils.setField(logService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(logService, "regexCache", new RegexCache());
+        ReflectionTestUtils.setField(logService, "logColumnEncoder", new LogColumnEncoder());
+        return logService;
+    }
+
+    public static LogTemplateService templateService(LogConfigProperties config, LogMetricsService metricsService) {
+        LogTemplateService templateService = new LogTemplateService();
+        ReflectionTestUtils.setField(templateService, "logConfigProperties", config);
+        ReflectionTestUtils.setField(templateService, "logParser", new LogParser());
+        ReflectionTestUtils.setField(templateService, "logMetricsService", metricsService);
+        return templateService;
+    }
+}
@@ -0,0 +1,44 @@
+package com.wuuees.log.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContextWindowTest {
+
+    @Test
+    void mergesOverlappingWindows() {
+        // 命中第 4、6、14 行，前 2 行后 1 行
+        assertEquals(List.of(2, 3, 4, 5, 6, 7, 12, 13, 14, 15), select(16, Set.of(4, 6, 14), 2, 1));
+        // 文件开头的命中行前面不足的上下文不补齐
+        assertEquals(List.of(0, 1, 2, 3), select(10, Set.of(0, 1), 0, 2));
+        assertEquals(List.of(5), select(10, Set.of(5), 0, 0));
+    }
+
+    @Test
+    void tracksPendingAfterContext() {
+        ContextWindow<Integer> window = new ContextWindow<>(1, 2);
+        assertTrue(window.accept(0, false).isEmpty());
+        assertEquals(List.of(0, 1), window.accept(1, true));
+        assertTrue(window.hasPendingAfter());
+        assertEquals(List.of(2), window.accept(2, false));
+        assertEquals(List.of(3), window.accept(3, false));
+        assertFalse(window.hasPendingAfter());
+        assertTrue(window.accept(4, false).isEmpty());
+    }
+
+    private List<Integer> select(int lines, Set<Integer> matches, int before, int after) {
+        ContextWindow<Integer> window = new ContextWindow<>(before, after);
+        List<Integer> selected = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            selected.addAll(window.accept(i, matches.contains(i)));
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,63 @@
+package com.wuuees.log.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonLineScannerTest {
+
+    private static final String LINE = "{\"@timestamp\":\"2025-01-01T10:00:00.123Z\",\"level\":\"ERROR\","
+            + "\"mdc\":{\"traceId\":\"nested\",\"tags\":[\"a\",\"}\"]},\"traceId\":\"abc\",\"retry\":3,"
+            + "\"message\":\"timeout \\\"order\\\"\\n\\u4e2d\",\"cause\":null}";
+
+    @Test
+    void extractsTopLevelFields() {
+        JsonLineScanner.FieldGroups groups = new JsonLineScanner.FieldGroups(List.of(List.of("level"),
+                List.of("traceId"), List.of("retry"), List.of("message"), List.of("cause"), List.of("missing")));
+
+        // 只取顶层字段，嵌套对象中的同名字段和 null 值都不计入
+        assertArrayEquals(new String[]{"ERROR", "abc", "3", "timeout \"order\"\n中", null, null},
+                JsonLineScanner.extract(LINE, groups));
+        assertArrayEquals(new String[]{"{\"traceId\":\"nested\",\"tags\":[\"a\",\"}\"]}"},
+                JsonLineScanner.extract(LINE, new JsonLineScanner.FieldGroups(List.of(List.of("mdc")))));
+
+        JsonLineScanner.FieldGroups single = new JsonLineScanner.FieldGroups(List.of(List.of("a")));
+        assertNull(JsonLineScanner.extract("2025-01-01 10:00:00.000 INFO {\"a\":1}", single));
+        assertNull(JsonLineScanner.extract("{\"a\":\"unterminated", single));
+    }
+
+    @Test
+    void extractsFirstFieldOfEachGroupAndStops() {
+        JsonLineScanner.FieldGroups groups = new JsonLineScanner.FieldGroups(
+                List.of(List.of("@timestamp", "time"), List.of("level", "severity")));
+        assertArrayEquals(new String[]{"2025-01-01T10:00:00.123Z", "ERROR"}, JsonLineScanner.extract(LINE, groups));
+
+        // 每组取行中先出现的字段，null 值不计入
+        assertArrayEquals(new String[]{"t2", "WARN"}, JsonLineScanner.extract(
+                "{\"time\":null,\"severity\":\"WARN\",\"time\":\"t2\",\"level\":\"INFO\"}", groups));
+        // 所有组都找到后停止扫描，之后的内容不再校验
+        assertArrayEquals(new String[]{"t", "INFO"}, JsonLineScanner.extract(
+                "{\"time\":\"t\",\"level\":\"INFO\",\"message\":\"unterminated", groups));
+        assertArrayEquals(new String[]{null, "INFO"}, JsonLineScanner.extract("{\"level\":\"INFO\"}", groups));
+        assertNull(JsonLineScanner.extract("{\"level\":\"INFO\",\"message\":\"unterminated", groups));
+    }
+
+    @Test
+    void matchesFieldFilters() {
+        assertTrue(JsonLineScanner.matches(LINE, Map.of("traceId", "abc")));
+        assertTrue(JsonLineScanner.matches(LINE, Map.of("traceId", "abc", "retry", "3")));
+        assertFalse(JsonLineScanner.matches(LINE, Map.of("traceId", "nested")));
+        assertFalse(JsonLineScanner.matches(LINE, Map.of("traceId", "abc", "userId", "42")));
+        assertFalse(JsonLineScanner.matches("plain abc line", Map.of("traceId", "abc")));
+        // 重复的字段不能代替缺少的字段
+        assertFalse(JsonLineScanner.matches("{\"traceId\":\"abc\",\"traceId\":\"abc\"}",
+                Map.of("traceId", "abc", "userId", "42")));
+    }
+}
@@ -0,0 +1,88 @@
+package com.wuuees.log.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LineCursorReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsForwardAndBackwardAcrossChunks() throws Exception {
+        List<String> expected = new ArrayList<>();
+        expected.add("2025-01-01 00:00:00.000 INFO  [main] a.b.C - 启动");
+        expected.add("x".repeat(150_000));
+        expected.add("");
+        expected.add("2025-01-01 00:00:01.000 ERROR [main] a.b.C - 失败");
+        expected.add("\tat a.b.C.run(C.java:1)");
+        expected.add("last line without newline");
+        File file = write(String.join("\r\n", expected.subList(0, 2)) + "\r\n"
+                + String.join("\n", expected.subList(2, expected.size())));
+
+        assertEquals(expected, readAll(LineCursorReader.forward(file, 0, file.length())));
+
+        List<String> reversed = readAll(LineCursorReader.backward(file, file.length()));
+        Collections.reverse(reversed);
+        assertEquals(expected, reversed);
+    }
+
+    @Test
+    void readsLinesSpanningManyChunks() throws Exception {
+        List<String> expected = List.of("head", "y".repeat(3_000_000), "z".repeat(200_000), "tail");
+        File file = write(String.join("\n", expected) + "\n");
+
+        assertEquals(expected, readAll(LineCursorReader.forward(file, 0, file.length())));
+
+        List<String> reversed = readAll(LineCursorReader.backward(file, file.length()));
+        Collections.reverse(reversed);
+        assertEquals(expected, reversed);
+    }
+
+    @Test
+    void continuesFromCursorInBothDirections() throws Exception {
+        File file = write("a\nbb\nccc\ndddd\n");
+
+        long cursor;
+        try (LineCursorReader reader = LineCursorReader.forward(file, 0, file.length())) {
+            assertEquals("a", reader.next().getText());
+            assertEquals("bb", reader.next().getText());
+            cursor = reader.position();
+        }
+
+        assertEquals(List.of("ccc", "dddd"), readAll(LineCursorReader.forward(file, cursor, file.length())));
+        assertEquals(List.of("bb", "a"), readAll(LineCursorReader.backward(file, cursor)));
+
+        try (LineCursorReader reader = LineCursorReader.backward(file, 0)) {
+            assertNull(reader.next());
+        }
+    }
+
+    private File write(String content) throws Exception {
+        Path path = tempDir.resolve("test.log");
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return path.toFile();
+    }
+
+    private List<String> readAll(LineCursorReader reader) throws Exception {
+        List<String> lines = new ArrayList<>();
+        try (reader) {
+            LineCursorReader.Line line;
+            while ((line = reader.next()) != null) {
+                lines.add(line.getText());
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,109 @@
+package com.wuuees.log.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wuuees.log.dto.LogQueryDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogColumnEncoderTest {
+
+    @Test
+    void decodesToOriginalLines() {
+        LogColumnEncoder encoder = new LogColumnEncoder();
+
+        List<String> lines = List.of(
+                "2025-01-01 10:00:00.120 INFO  [main] c.w.order.OrderService - create order, orderId=1",
+                "2025-01-01 10:00:00.007 ERROR [http-nio-8080-exec-1] c.w.order.OrderService - timeout - retry",
+                "\tat com.wuuees.order.OrderService.create(OrderService.java:42)",
+                "{\"@timestamp\":\"2025-01-01T10:00:01.000Z\",\"level\":\"INFO\",\"message\":\"json\"}",
+                "2025-01-01 10:00:02.000  INFO [main] c.w.order.OrderService - unusual padding",
+                "2025-01-01 10:00:03.500 WARN  [main] c.w.order.OrderService - ",
+                "2025-02-30 10:00:04.000 INFO  [main] c.w.order.OrderService - invalid date",
+                "2025-01-01 10:00:05.000 WARN [main] c.w.order.OrderService - missing padding",
+                "2025-01-01 10:00:06.000 DEBUG [main] b] c.w.order.OrderService - a - b");
+
+        LogQueryDto.LogColumnarResponse response = encoder.encode(lines);
+
+        assertEquals(List.of("INFO", "ERROR", "WARN", "DEBUG"), response.getLevelDict());
+        assertEquals(List.of("main", "http-nio-8080-exec-1"), response.getThreadDict());
+        assertEquals(-113, response.getTimeDeltas()[1]);
+        assertEquals(-1, response.getLevels()[2]);
+        assertEquals(-1, response.getLevels()[4]);
+        assertEquals(-1, response.getLevels()[6]);
+        assertEquals(-1, response.getLevels()[7]);
+        assertEquals("b] c.w.order.OrderService", response.getLoggerDict().get(response.getLoggers()[8]));
+        assertEquals(lines, decode(response));
+    }
+
+    @Test
+    void shrinksGeneratedPageAgainstPlainResponse() throws IOException {
+        // 与基准测试的 LogFixtures 相同的生成方式，取一页1000行
+        Random random = new Random(42);
+        LocalDateTime time = LocalDateTime.of(2025, 1, 1, 0, 0, 0);
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 512 * 1024) {
+            time = time.plusNanos((random.nextInt(20) + 1) * 1_000_000L);
+            LogLineGenerator.appendLine(sb, random, time);
+        }
+        List<String> lines = Arrays.asList(sb.toString().split("\n")).subList(0, 1000);
+        List<Integer> lineNumbers = IntStream.rangeClosed(1, lines.size()).boxed().toList();
+
+        LogQueryDto.LogQueryResponse plain = new LogQueryDto.LogQueryResponse();
+        plain.setLines(lines);
+        plain.setLineNumbers(lineNumbers);
+        LogQueryDto.LogColumnarResponse columnar = new LogColumnEncoder().encode(lines);
+        columnar.setLineNumbers(lineNumbers);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        byte[] plainJson = objectMapper.writeValueAsBytes(plain);
+        byte[] columnarJson = objectMapper.writeValueAsBytes(columnar);
+
+        // 列式编码本身约为原接口的1/2，只对列式响应启用的 gzip 之后至少小3倍（实测约1/11）
+        assertTrue(columnarJson.length * 3 < plainJson.length * 2,
+                () -> "columnar " + columnarJson.length + " vs plain " + plainJson.length);
+        int gzipped = gzip(columnarJson).length;
+        assertTrue(gzipped * 3 < plainJson.length, () -> "gzipped columnar " + gzipped + " vs plain " + plainJson.length);
+        assertTrue(gzipped < gzip(plainJson).length);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 与 index.html 中 decodeColumnar 相同的还原规则
+     */
+    private List<String> decode(LogQueryDto.LogColumnarResponse response) {
+        List<String> lines = new ArrayList<>();
+        long millis = 0;
+        for (int i = 0; i < response.getMessages().size(); i++) {
+            if (response.getLevels()[i] < 0) {
+                lines.add(response.getMessages().get(i));
+                continue;
+            }
+            millis += response.getTimeDeltas()[i];
+            lines.add(LogColumnEncoder.join(millis,
+                    response.getLevelDict().get(response.getLevels()[i]),
+                    response.getThreadDict().get(response.getThreads()[i]),
+                    response.getLoggerDict().get(response.getLoggers()[i]),
+                    response.getMessages().get(i)));
+        }
+        return lines;
+    }
+}
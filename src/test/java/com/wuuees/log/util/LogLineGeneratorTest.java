@@ -0,0 +1,34 @@
+package com.wuuees.log.util;
+
+import com.wuuees.log.dto.LogLineInfo;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class LogLineGeneratorTest {
+
+    @Test
+    void generatesParsableLinesWithSequence() {
+        LogParser parser = new LogParser();
+        Random random = new Random(1);
+        LocalDateTime time = LocalDateTime.of(2025, 1, 1, 12, 0, 0, 123_000_000);
+        for (long sequence = 0; sequence < 200; sequence++) {
+            StringBuilder sb = new StringBuilder();
+            LogLineGenerator.appendLine(sb, random, time, sequence);
+            String[] lines = sb.toString().split("\n");
+
+            LogLineInfo info = parser.parseLine(lines[0]);
+            assertEquals(time, info.getTimestamp());
+            assertNotNull(info.getLevel());
+            assertEquals(sequence, LogLineGenerator.sequenceOf(lines[0]));
+            // 堆栈行没有序号
+            for (int i = 1; i < lines.length; i++) {
+                assertEquals(-1, LogLineGenerator.sequenceOf(lines[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.wuuees.log.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LogMergerTest {
+
+    private final LogParser parser = new LogParser();
+
+    @Test
+    void mergesByTimestampKeepingStackTraces() {
+        List<String> a = List.of(
+                "2024-01-01 10:00:01.000 INFO  [main] a - a1",
+                "2024-01-01 10:00:03.000 ERROR [main] a - a2",
+                "\tat a.Foo.bar(Foo.java:1)",
+                "2024-01-01 10:00:05.000 INFO  [main] a - a3");
+        List<String> b = List.of(
+                "2024-01-01 10:00:02.000 INFO  [main] b - b1",
+                "2024-01-01 10:00:03.000 INFO  [main] b - b2",
+                "2024-01-01 10:00:04.000 INFO  [main] b - b3");
+
+        assertEquals(List.of("0:0", "1:0", "0:1", "0:2", "1:1", "1:2", "0:3"), merge(List.of(a, b), false));
+    }
+
+    @Test
+    void mergesReversedSources() {
+        // 倒序时堆栈在所属的日志行之前
+        List<String> a = List.of(
+                "2024-01-01 10:00:05.000 INFO  [main] a - a3",
+                "\tat a.Foo.bar(Foo.java:1)",
+                "2024-01-01 10:00:03.000 ERROR [main] a - a2",
+                "2024-01-01 10:00:01.000 INFO  [main] a - a1");
+        List<String> b = List.of(
+                "2024-01-01 10:00:04.000 INFO  [main] b - b3",
+                "2024-01-01 10:00:02.000 INFO  [main] b - b1");
+
+        assertEquals(List.of("0:0", "1:0", "0:1", "0:2", "1:1", "0:3"), merge(List.of(a, b), true));
+    }
+
+    private List<String> merge(List<List<String>> sources, boolean reverse) {
+        return LogMerger.merge(sources, line -> parser.parseLine(line).getTimestamp(), reverse).stream()
+                .map(position -> position.getSource() + ":" + position.getIndex())
+                .collect(Collectors.toList());
+    }
+}
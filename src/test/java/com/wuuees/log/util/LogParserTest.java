@@ -0,0 +1,69 @@
+package com.wuuees.log.util;
+
+import com.wuuees.log.dto.LogLineInfo;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class LogParserTest {
+
+    private final LogParser parser = new LogParser();
+
+    @Test
+    void standardLineParsesSameAsPattern() {
+        List<String> lines = List.of(
+                "2024-01-01 10:00:00.123 INFO  [main] c.w.Foo - hello",
+                "2024-01-01 10:00:00.123\tWARN\tmessage with\ttabs",
+                "2024-01-01 10:00:00.123 ERROR ",
+                "2024-01-01 10:00:00.123 ERROR",
+                "2024-01-01 10:00:00.123 [main] INFO no level",
+                "2024-01-01 10:00:00.123  DEBUG   leading spaces",
+                "2024-13-45 25:61:61.999 INFO invalid date",
+                "2024-01-01  10:00:00.123 INFO two spaces",
+                "2024-01-01 10:00:00.123 INFO line\u2028separator",
+                "2024-01-01 10:00:00.123 INFO carriage\rreturn",
+                "2024-01-01 10:00:00.123 INFO_2 underscore level",
+                "2024-01-01 10:00:00.123 信息 non ascii level",
+                "prefix 2024-01-01 10:00:00.123 INFO later timestamp",
+                "\tat com.wuuees.Foo.bar(Foo.java:1)",
+                "");
+        for (String line : lines) {
+            assertSameAsPattern(line);
+        }
+
+        Random random = new Random(7);
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder sb = new StringBuilder();
+            LogLineGenerator.appendLine(sb, random, time.plusNanos(i * 1_000_000L));
+            for (String line : sb.toString().split("\n")) {
+                assertSameAsPattern(line);
+            }
+        }
+    }
+
+    @Test
+    void fastPathHandlesStandardFormat() {
+        LogLineInfo info = parser.parseStandardLine("2024-01-01 10:00:00.123 INFO  [main] c.w.Foo - hello");
+        assertNotNull(info);
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0, 0, 123_000_000), info.getTimestamp());
+        assertEquals("INFO", info.getLevel());
+        assertEquals("[main] c.w.Foo - hello", info.getContent());
+    }
+
+    private void assertSameAsPattern(String line) {
+        LogLineInfo fast = parser.parseStandardLine(line);
+        if (fast != null) {
+            assertEquals(parser.parsePatternLine(line), fast, line);
+        }
+        LogLineInfo pattern = parser.parsePatternLine(line);
+        if (pattern != null && !JsonLineScanner.isJsonLine(line)) {
+            assertEquals(pattern, parser.parseLine(line), line);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.wuuees.log.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegexCacheTest {
+
+    private final RegexCache regexCache = new RegexCache();
+
+    @Test
+    void extractsRequiredLiterals() {
+        assertEquals(List.of("orderId=", "timeout"), RegexCache.requiredLiterals("orderId=\\d{6,}.*timeout"));
+        assertEquals(List.of("user", "ab"), RegexCache.requiredLiterals("abc?(x|y)user"));
+        assertEquals(List.of("a.b"), RegexCache.requiredLiterals("a\\.b[0-9]+"));
+        assertEquals(List.of("retry"), RegexCache.requiredLiterals("(?i)retry\\s+\\d"));
+
+        // 无法确定必须出现的字面量
+        assertEquals(List.of(), RegexCache.requiredLiterals("error|timeout"));
+        assertEquals(List.of(), RegexCache.requiredLiterals("abc(?i)def"));
+        assertEquals(List.of(), RegexCache.requiredLiterals("\\x41BC"));
+    }
+
+    @Test
+    void matchesWithPrefilter() {
+        long timeout = 1_000_000_000L;
+        RegexCache.CompiledRegex regex = regexCache.get("orderId=\\d{6,}.*timeout");
+
+        assertTrue(regex.find("call inventory timeout, orderId=1234567 timeout", timeout));
+        assertFalse(regex.find("call inventory timeout, orderId=123 timeout", timeout));
+        assertFalse(regex.find("create order success, orderId=1234567", timeout));
+        assertTrue(regexCache.get("(?i)TIMEOUT").find("read timeout", timeout));
+    }
+
+    @Test
+    void abortsCatastrophicBacktracking() {
+        RegexCache.CompiledRegex regex = regexCache.get("(.*a){20}");
+        assertThrows(IllegalArgumentException.class, () -> regex.find("a".repeat(40) + "!", 50_000_000L));
+    }
+}
@@ -0,0 +1,58 @@
+package com.wuuees.log.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TailSamplerTest {
+
+    @Test
+    void keepsErrorsAndSamplesOthersWhenDegraded() {
+        TailSampler sampler = new TailSampler(10, 1);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(sampler.accept("INFO"));
+        }
+        assertFalse(sampler.isDegraded());
+
+        // 超过阈值后立即降级
+        int accepted = sampler.accept("INFO") ? 1 : 0;
+        assertTrue(sampler.isDegraded());
+        for (int i = 0; i < 10_000; i++) {
+            if (sampler.accept("DEBUG")) {
+                accepted++;
+            }
+        }
+        assertTrue(accepted < 1000);
+        assertTrue(sampler.accept("ERROR"));
+        // 堆栈跟随 ERROR 行
+        assertTrue(sampler.accept(null));
+        assertTrue(sampler.accept("warn"));
+
+        TailSampler.Period period = sampler.endPeriod();
+        assertTrue(period.isDegradedBefore());
+        assertTrue(period.isDegradedAfter());
+        assertEquals(10_014, period.getLines());
+        assertEquals(10_001 - accepted, period.getDropped());
+        assertEquals(2, period.getLevels().get("ERROR"));
+        assertEquals(1, period.getLevels().get("WARN"));
+    }
+
+    @Test
+    void recoversAfterQuietPeriods() {
+        TailSampler sampler = new TailSampler(10, 1);
+        for (int i = 0; i < 20; i++) {
+            sampler.accept("INFO");
+        }
+        assertTrue(sampler.isDegraded());
+        sampler.endPeriod();
+
+        sampler.endPeriod();
+        sampler.endPeriod();
+        TailSampler.Period period = sampler.endPeriod();
+        assertTrue(period.isDegradedBefore());
+        assertFalse(period.isDegradedAfter());
+        assertTrue(sampler.accept("DEBUG"));
+    }
+}
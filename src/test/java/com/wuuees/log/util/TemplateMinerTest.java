@@ -0,0 +1,54 @@
+package com.wuuees.log.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TemplateMinerTest {
+
+    @Test
+    void groupsLinesIntoTemplates() {
+        TemplateMiner miner = new TemplateMiner(100);
+        TemplateMiner.Template created = miner.add("INFO create order success, orderId=1 user=alice", 0);
+        miner.add("INFO create order success, orderId=2 user=bob", 100);
+        miner.add("INFO create order success, orderId=3 user=carol", 200);
+        miner.add("ERROR call inventory timeout", 300);
+
+        List<TemplateMiner.Template> templates = miner.templates();
+        assertEquals(2, templates.size());
+        assertSame(created, templates.get(0));
+        assertEquals("INFO create order success, <*> <*>", created.getText());
+        assertEquals(3, created.getCount());
+        assertEquals(0, created.getFirstOffset());
+        assertEquals(200, created.getLastOffset());
+
+        String[] tokens = created.getTokens();
+        assertTrue(TemplateMiner.matches(tokens, TemplateMiner.tokenize("INFO create order success, orderId=9 user=dave")));
+        assertFalse(TemplateMiner.matches(tokens, TemplateMiner.tokenize("INFO create order failed, orderId=9 user=dave")));
+        assertFalse(TemplateMiner.matches(tokens, TemplateMiner.tokenize("INFO create order success, orderId=9")));
+    }
+
+    @Test
+    void evictsLeastRecentlyMatchedTemplate() {
+        TemplateMiner miner = new TemplateMiner(2);
+        miner.add("first template line", 0);
+        miner.add("second template here now", 1);
+        miner.add("first template line", 2);
+        miner.add("third one", 3);
+
+        assertEquals(2, miner.templates().size());
+        assertEquals(1, miner.getEvicted());
+        assertEquals(List.of("first template line", "third one"),
+                miner.templates().stream().map(TemplateMiner.Template::getText).collect(Collectors.toList()));
+        assertEquals(2, miner.templates().get(0).getCount());
+
+        // 被淘汰的模板再次出现时作为新模板
+        assertEquals(1, miner.add("second template here now", 4).getCount());
+    }
+}